@@ -1,159 +1,595 @@
-package com.epam.lab.auto_completion;
-
-import java.util.ArrayList;
-import java.util.List;
-
-import com.epam.lab.auto_completion.trie.Trie;
-import com.epam.lab.auto_completion.trie.Trie.Tuple;
-
-/**
- * Abstraction of the class represents in-memory string dictionary. The class
- * provides methods for filling out a dictionary, removing words from
- * dictionary, estimating dictionary volume and returning all the dictionary
- * words with the specified prefix. Instance of the class uses the functionality
- * of the encapsulated Trie interface instance by delegating it the major part
- * of method calls.
- * 
- * @author Serhii Terletskyi
- * @version 1.0 03/18/2016
- */
-public class PrefixMatches {
-	/**
-	 * Regular expression for splitting strings in add() method.
-	 */
-	private static final String DELIMITER_REGEX = "\\s+";
-	/**
-	 * Minimal length of the string value that can be regarded as prefix.
-	 */
-	private static final int MIN_PREFIX_LENGTH = 2;
-	/**
-	 * Minimal length of the string value that can be stored in the dictionary.
-	 */
-	private static final int MIN_WORD_LENGTH = 3;
-	/**
-	 * Default number of word-sets that has wordsWithPrefix(String) method to
-	 * return. Words of the same word-set have the same length.
-	 */
-	private static final int DEFAULT_WORD_SET_LENGTH = 3;
-
-	/**
-	 * Encapsulated instance of the Trie interface, to which the major part of
-	 * this object method calls are delegated.
-	 */
-	private Trie<Integer> trie;
-
-	public PrefixMatches(Trie<Integer> trie) {
-		super();
-		this.trie = trie;
-	}
-
-	public void setTrie(Trie<Integer> trie) {
-		this.trie = trie;
-	}
-
-	/**
-	 * Splits input strings, trim them and add those of them to the dictionary
-	 * whose length is bigger than MIN_WORD_LENGTH. However, not all the words
-	 * satisfying previous condition can be added to the dictionary, to be added
-	 * to the dictionary input strings should contain characters satisfying
-	 * inner Trie instance alphabet.
-	 * 
-	 * @param strings
-	 *            - input array of the strings to be added.
-	 * @return number of words added to the dictionary.
-	 */
-	public int add(String... strings) {
-		int count = 0;
-		for (String str : strings) {
-			for (String arStr : str.split(DELIMITER_REGEX)) {
-				arStr = arStr.trim();
-				if (arStr.length() >= MIN_WORD_LENGTH) {
-					trie.add(new Tuple<Integer>(arStr, arStr.length()));
-					count++;
-				}
-			}
-		}
-		return count;
-	}
-
-	/**
-	 * Returns true if this dictionary contains the specified word.
-	 * 
-	 * @param word
-	 *            - word whose presence in this dictionary is to be tested.
-	 * @return Boolean value indicating if this dictionary contains the
-	 *         specified word.
-	 */
-	public boolean contains(String word) {
-		return trie.contains(word);
-	}
-
-	/**
-	 * Removes the specified word from this dictionary if it is present. Returns
-	 * whether the specified word to delete was found.
-	 * 
-	 * @param word
-	 *            - word to be deleted from dictionary.
-	 * @return Boolean value indicating if the specified word to delete was
-	 *         found in the dictionary.
-	 */
-	public boolean delete(String word) {
-		return trie.delete(word);
-	}
-
-	/**
-	 * Returns number of words containing in this dictionary.
-	 * 
-	 * @return Number of available dictionary words.
-	 */
-	public int size() {
-		return trie.size();
-	}
-
-	/**
-	 * Returns an Iterable view containing all the dictionary words with
-	 * specified prefix. Result view contains at most specified number of the
-	 * length-sets. Words of the same length-set have the same length. Words of
-	 * the result view are length sorted.
-	 * 
-	 * @param pref
-	 *            - prefix of the string values should contained in returned
-	 *            Iterable object.
-	 * @param k
-	 *            - number of word-sets containing in result Iterable view.
-	 * @return Iterable view containing all the length sorted dictionary words
-	 *         with specified prefix within specified number of length-sets.
-	 */
-	public Iterable<String> wordsWithPrefix(String pref, int k) {
-		List<String> result = new ArrayList<>();
-		if (pref.length() >= MIN_PREFIX_LENGTH && k > 0) {
-			int curLen = 0;
-			for (String str : trie.wordsWithPrefix(pref)) {
-				if (str.length() >= MIN_WORD_LENGTH) {
-					if (str.length() > curLen && --k == -1) {
-						break;
-					}
-					curLen = str.length();
-					result.add(str);
-				}
-			}
-		}
-		return result;
-	}
-
-	/**
-	 * Returns an Iterable view containing all the dictionary words with
-	 * specified prefix. Result view contains at most number of the length-sets
-	 * equals to the DEFAULT_WORD_SET_LENGTH. Words of the same length-set have
-	 * the same length. Words of the result view are length sorted.
-	 * 
-	 * @param pref
-	 *            - prefix of the string values should contained in returned
-	 *            Iterable object.
-	 * @return Iterable view containing all the length sorted dictionary words
-	 *         with specified prefix within default number of length-sets.
-	 */
-	public Iterable<String> wordsWithPrefix(String pref) {
-		return wordsWithPrefix(pref, DEFAULT_WORD_SET_LENGTH);
-	}
-}
+package com.epam.lab.auto_completion;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.epam.lab.auto_completion.trie.QueryBudget;
+import com.epam.lab.auto_completion.trie.QueryResult;
+import com.epam.lab.auto_completion.trie.SuffixIndex;
+import com.epam.lab.auto_completion.trie.Trie;
+import com.epam.lab.auto_completion.trie.Trie.Tuple;
+import com.epam.lab.auto_completion.trie.TrieQuery;
+import com.epam.lab.auto_completion.trie.TrieQuery.Order;
+
+/**
+ * Abstraction of the class represents in-memory string dictionary. The class
+ * provides methods for filling out a dictionary, removing words from
+ * dictionary, estimating dictionary volume, counting and returning all the
+ * dictionary words with the specified prefix or containing the specified
+ * fragment, learning which words the users select and ranking the words by
+ * these frequencies. Instance of the class uses the functionality of the
+ * encapsulated Trie interface instance by delegating it the major part of
+ * method calls.
+ * 
+ * @author Serhii Terletskyi
+ * @version 1.0 03/18/2016
+ */
+public class PrefixMatches {
+	/**
+	 * Regular expression for splitting strings in add() method.
+	 */
+	private static final String DELIMITER_REGEX = "\\s+";
+	/**
+	 * Minimal length of the string value that can be regarded as prefix.
+	 */
+	private static final int MIN_PREFIX_LENGTH = 2;
+	/**
+	 * Minimal length of the string value that can be stored in the dictionary.
+	 */
+	private static final int MIN_WORD_LENGTH = 3;
+	/**
+	 * Default number of word-sets that has wordsWithPrefix(String) method to
+	 * return. Words of the same word-set have the same length.
+	 */
+	private static final int DEFAULT_WORD_SET_LENGTH = 3;
+	/**
+	 * Minimal number of the changes since the suffix index was built, which
+	 * make it rebuilt.
+	 */
+	private static final int MIN_SUFFIX_INDEX_CHANGES = 1024;
+	/**
+	 * Suffix index is rebuilt when the number of the changes since it was
+	 * built exceeds the number of its words divided by this ratio.
+	 */
+	private static final int SUFFIX_INDEX_CHANGE_RATIO = 8;
+	/**
+	 * Stale suffix index is dropped when the changes since it was built
+	 * exceed the rebuild threshold this number of times while the rebuild is
+	 * running, so a bulk load does not accumulate the changes.
+	 */
+	private static final int SUFFIX_INDEX_DROP_FACTOR = 2;
+	/**
+	 * Order of the words by length and lexicographically.
+	 */
+	private static final Comparator<String> LENGTH_ORDER = Comparator.comparingInt(String::length)
+			.thenComparing(Comparator.naturalOrder());
+
+	/**
+	 * Encapsulated instance of the Trie interface, to which the major part of
+	 * this object method calls are delegated.
+	 */
+	private Trie<Integer> trie;
+	/**
+	 * Suffix index of the dictionary words as of the start of its build, or
+	 * null if it is not built yet. The suffix index fields are guarded by
+	 * this object lock.
+	 */
+	private SuffixIndex suffixIndex;
+	/**
+	 * Words added to the dictionary since the suffix index build started.
+	 */
+	private Set<String> addedWords = new HashSet<>();
+	/**
+	 * Words deleted from the dictionary since the suffix index build started.
+	 */
+	private Set<String> deletedWords = new HashSet<>();
+	/**
+	 * Words added since the running rebuild of the suffix index started, or
+	 * null if no rebuild is running.
+	 */
+	private Set<String> pendingAddedWords;
+	/**
+	 * Words deleted since the running rebuild of the suffix index started, or
+	 * null if no rebuild is running.
+	 */
+	private Set<String> pendingDeletedWords;
+	/**
+	 * Number of the Trie instance replacements. Rebuild started for a
+	 * replaced Trie instance is not published.
+	 */
+	private int trieStamp;
+	/**
+	 * Executor rebuilding the suffix index.
+	 */
+	private Executor suffixIndexExecutor = ForkJoinPool.commonPool();
+	/**
+	 * Whether the suffix index was requested, so the changes are recorded.
+	 * Read without the lock, so the writers of a dictionary without the
+	 * fragment queries do not take this object lock.
+	 */
+	private volatile boolean suffixIndexUsed;
+
+	public PrefixMatches(Trie<Integer> trie) {
+		super();
+		this.trie = trie;
+	}
+
+	public synchronized void setTrie(Trie<Integer> trie) {
+		this.trie = trie;
+		suffixIndex = null;
+		addedWords = new HashSet<>();
+		deletedWords = new HashSet<>();
+		pendingAddedWords = null;
+		pendingDeletedWords = null;
+		suffixIndexUsed = false;
+		trieStamp++;
+	}
+
+	/**
+	 * Sets the executor rebuilding the suffix index of the dictionary words in
+	 * the background, the common pool by default.
+	 * 
+	 * @param executor
+	 *            - executor of the suffix index rebuilds.
+	 */
+	public synchronized void setSuffixIndexExecutor(Executor executor) {
+		if (executor == null) {
+			throw new IllegalArgumentException("Null suffix index executor");
+		}
+		suffixIndexExecutor = executor;
+	}
+
+	/**
+	 * Splits input strings, trim them and add those of them to the dictionary
+	 * whose length is bigger than MIN_WORD_LENGTH. However, not all the words
+	 * satisfying previous condition can be added to the dictionary, to be added
+	 * to the dictionary input strings should contain characters satisfying
+	 * inner Trie instance alphabet.
+	 * 
+	 * @param strings
+	 *            - input array of the strings to be added.
+	 * @return number of words accepted by the dictionary.
+	 */
+	public int add(String... strings) {
+		int count = 0;
+		for (String str : strings) {
+			for (String arStr : str.split(DELIMITER_REGEX)) {
+				if (addWord(arStr.trim())) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Adds the already tokenized words to the dictionary without splitting
+	 * them. Words shorter than MIN_WORD_LENGTH and words rejected by the inner
+	 * Trie instance are skipped.
+	 * 
+	 * @param words
+	 *            - words to be added.
+	 * @return number of words accepted by the dictionary.
+	 */
+	public int addWords(Iterable<String> words) {
+		int count = 0;
+		for (String word : words) {
+			if (addWord(word)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Adds the word to the dictionary if its length is not less than
+	 * MIN_WORD_LENGTH and its chars belong to the Trie alphabet. Word is
+	 * checked before it is passed to the inner Trie instance, so the trie is
+	 * descended once per word.
+	 * 
+	 * @param word
+	 *            - word to be added.
+	 * @return true if the word was accepted by the dictionary.
+	 */
+	private boolean addWord(String word) {
+		if (word.length() < MIN_WORD_LENGTH || !Trie.isValidKey(word)) {
+			return false;
+		}
+		trie.add(new Tuple<Integer>(word, word.length()));
+		recordChange(word, true);
+		return true;
+	}
+
+	/**
+	 * Returns true if this dictionary contains the specified word.
+	 * 
+	 * @param word
+	 *            - word whose presence in this dictionary is to be tested.
+	 * @return Boolean value indicating if this dictionary contains the
+	 *         specified word.
+	 */
+	public boolean contains(String word) {
+		return trie.contains(word);
+	}
+
+	/**
+	 * Removes the specified word from this dictionary if it is present. Returns
+	 * whether the specified word to delete was found.
+	 * 
+	 * @param word
+	 *            - word to be deleted from dictionary.
+	 * @return Boolean value indicating if the specified word to delete was
+	 *         found in the dictionary.
+	 */
+	public boolean delete(String word) {
+		boolean deleted = trie.delete(word);
+		if (deleted) {
+			recordChange(word, false);
+		}
+		return deleted;
+	}
+
+	/**
+	 * Returns number of words containing in this dictionary.
+	 * 
+	 * @return Number of available dictionary words.
+	 */
+	public int size() {
+		return trie.size();
+	}
+
+	/**
+	 * Returns an Iterable view containing all the dictionary words with
+	 * specified prefix. Result view contains at most specified number of the
+	 * length-sets. Words of the same length-set have the same length. Words of
+	 * the result view are length sorted.
+	 * 
+	 * @param pref
+	 *            - prefix of the string values should contained in returned
+	 *            Iterable object.
+	 * @param k
+	 *            - number of word-sets containing in result Iterable view.
+	 * @return Iterable view containing all the length sorted dictionary words
+	 *         with specified prefix within specified number of length-sets.
+	 */
+	public Iterable<String> wordsWithPrefix(String pref, int k) {
+		if (pref.length() < MIN_PREFIX_LENGTH || k <= 0) {
+			return new ArrayList<>();
+		}
+		TrieQuery query = newQuery(pref, Order.LENGTH);
+		query.setLengthSets(k);
+		return trie.query(query).getWords();
+	}
+
+	/**
+	 * Returns an Iterable view containing all the dictionary words with
+	 * specified prefix. Result view contains at most number of the length-sets
+	 * equals to the DEFAULT_WORD_SET_LENGTH. Words of the same length-set have
+	 * the same length. Words of the result view are length sorted.
+	 * 
+	 * @param pref
+	 *            - prefix of the string values should contained in returned
+	 *            Iterable object.
+	 * @return Iterable view containing all the length sorted dictionary words
+	 *         with specified prefix within default number of length-sets.
+	 */
+	public Iterable<String> wordsWithPrefix(String pref) {
+		return wordsWithPrefix(pref, DEFAULT_WORD_SET_LENGTH);
+	}
+
+	/**
+	 * Returns the result of wordsWithPrefix(String, int) computed within the
+	 * specified budget. If the budget runs out, e.g. the deadline passes or
+	 * the query is cancelled, the words found so far are returned and the
+	 * result is flagged truncated.
+	 * 
+	 * @param pref
+	 *            - prefix of the string values should contained in returned
+	 *            Iterable object.
+	 * @param k
+	 *            - number of word-sets containing in result Iterable view.
+	 * @param budget
+	 *            - budget limiting the query work.
+	 * @return result containing the length sorted dictionary words with
+	 *         specified prefix, possibly truncated.
+	 */
+	public QueryResult wordsWithPrefix(String pref, int k, QueryBudget budget) {
+		if (pref.length() < MIN_PREFIX_LENGTH || k <= 0) {
+			return new QueryResult(new ArrayList<>(), 0);
+		}
+		TrieQuery query = newQuery(pref, Order.LENGTH);
+		query.setLengthSets(k);
+		query.setBudget(budget);
+		return trie.query(query);
+	}
+
+	/**
+	 * Returns the result of wordsWithPrefix(String) computed within the
+	 * specified budget (see wordsWithPrefix(String, int, QueryBudget)).
+	 * 
+	 * @param pref
+	 *            - prefix of the string values should contained in returned
+	 *            Iterable object.
+	 * @param budget
+	 *            - budget limiting the query work.
+	 * @return result containing the length sorted dictionary words with
+	 *         specified prefix, possibly truncated.
+	 */
+	public QueryResult wordsWithPrefix(String pref, QueryBudget budget) {
+		return wordsWithPrefix(pref, DEFAULT_WORD_SET_LENGTH, budget);
+	}
+
+	/**
+	 * Returns an Iterable view containing the dictionary words, which contain
+	 * the specified fragment at any position. Result view contains at most
+	 * specified number of the length-sets and is sorted the same way as the
+	 * wordsWithPrefix(String, int) result. Fragments shorter than
+	 * MIN_PREFIX_LENGTH match no words. Words are found by the suffix index of
+	 * the dictionary in time proportional to the fragment length plus the
+	 * number of the found words (times logarithm of the dictionary size),
+	 * plus the number of the words changed since the index was built. Index
+	 * is built in the background on the first call and is rebuilt in the
+	 * background when the changes accumulate. Until the first build finishes,
+	 * and while a rebuild runs after a bulk change dropped the stale index,
+	 * each call scans all the dictionary words instead.
+	 * 
+	 * @param fragment
+	 *            - fragment the words should contain.
+	 * @param k
+	 *            - number of word-sets containing in result Iterable view.
+	 * @return Iterable view containing the length sorted dictionary words
+	 *         containing the fragment within specified number of length-sets.
+	 */
+	public Iterable<String> wordsContaining(String fragment, int k) {
+		if (fragment.length() < MIN_PREFIX_LENGTH || k <= 0) {
+			return new ArrayList<>();
+		}
+		TrieQuery query = newQuery(fragment, Order.LENGTH);
+		query.setLengthSets(k);
+		List<String> words = findContaining(fragment);
+		words.sort(LENGTH_ORDER);
+		return query.select(words).getWords();
+	}
+
+	/**
+	 * Returns the words containing the fragment in any order. Until the suffix
+	 * index is built the words are scanned; after that the words found by the
+	 * index are merged with the changes made since its build started.
+	 */
+	private List<String> findContaining(String fragment) {
+		while (true) {
+			SuffixIndex index;
+			synchronized (this) {
+				index = suffixIndex;
+				if (index == null) {
+					rebuildSuffixIndex();
+				}
+			}
+			List<String> result = new ArrayList<>();
+			if (index == null) {
+				for (String word : trie.words()) {
+					if (word.contains(fragment)) {
+						result.add(word);
+					}
+				}
+				return result;
+			}
+			List<String> indexed = index.wordsContaining(fragment);
+			synchronized (this) {
+				if (index != suffixIndex) {
+					continue;
+				}
+				for (String word : indexed) {
+					if (!deletedWords.contains(word) && !addedWords.contains(word)) {
+						result.add(word);
+					}
+				}
+				for (String word : addedWords) {
+					if (word.contains(fragment)) {
+						result.add(word);
+					}
+				}
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Records the change of the dictionary for the suffix index and for the
+	 * running rebuild of it. Only the last change of a word is kept. When the
+	 * changes exceed the threshold the rebuild is started, and if they keep
+	 * growing while it runs the stale index is dropped. Nothing is recorded
+	 * and no lock is taken until the suffix index is requested.
+	 */
+	private void recordChange(String word, boolean added) {
+		if (!suffixIndexUsed) {
+			return;
+		}
+		synchronized (this) {
+			if (suffixIndex != null) {
+				record(word, added, addedWords, deletedWords);
+				int changes = addedWords.size() + deletedWords.size();
+				int threshold = Math.max(MIN_SUFFIX_INDEX_CHANGES, suffixIndex.size() / SUFFIX_INDEX_CHANGE_RATIO);
+				if (changes > threshold) {
+					if (pendingAddedWords == null) {
+						rebuildSuffixIndex();
+					} else if (changes > threshold * SUFFIX_INDEX_DROP_FACTOR) {
+						suffixIndex = null;
+						addedWords = new HashSet<>();
+						deletedWords = new HashSet<>();
+					}
+				}
+			}
+			if (pendingAddedWords != null) {
+				record(word, added, pendingAddedWords, pendingDeletedWords);
+			}
+		}
+	}
+
+	private static void record(String word, boolean added, Set<String> addedWords, Set<String> deletedWords) {
+		if (added) {
+			deletedWords.remove(word);
+			addedWords.add(word);
+		} else {
+			addedWords.remove(word);
+			deletedWords.add(word);
+		}
+	}
+
+	/**
+	 * Starts rebuilding the suffix index in the background unless a rebuild
+	 * is running. The changes made while the words are read are recorded
+	 * apart, so a word changed concurrently is correct after the rebuilt
+	 * index is published whether it was read or not. Rebuilt index is not
+	 * published if the Trie instance was replaced meanwhile. Called holding
+	 * this object lock.
+	 */
+	private void rebuildSuffixIndex() {
+		if (pendingAddedWords != null) {
+			return;
+		}
+		pendingAddedWords = new HashSet<>();
+		pendingDeletedWords = new HashSet<>();
+		suffixIndexUsed = true;
+		final Trie<Integer> source = trie;
+		final int expectedStamp = trieStamp;
+		suffixIndexExecutor.execute(() -> {
+			SuffixIndex index = null;
+			try {
+				index = new SuffixIndex(source.words(), MIN_PREFIX_LENGTH);
+			} finally {
+				synchronized (this) {
+					if (expectedStamp == trieStamp) {
+						if (index != null) {
+							suffixIndex = index;
+							addedWords = pendingAddedWords;
+							deletedWords = pendingDeletedWords;
+						}
+						pendingAddedWords = null;
+						pendingDeletedWords = null;
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * Returns number of the dictionary words with specified prefix. Prefixes
+	 * shorter than MIN_PREFIX_LENGTH match no words.
+	 * 
+	 * @param pref
+	 *            - prefix of the words to be counted.
+	 * @return number of the dictionary words with specified prefix.
+	 */
+	public int countWithPrefix(String pref) {
+		if (pref.length() < MIN_PREFIX_LENGTH) {
+			return 0;
+		}
+		return trie.query(newQuery(pref, Order.COUNT)).getCount();
+	}
+
+	/**
+	 * Returns an Iterable view containing the page of the lexicographically
+	 * sorted dictionary words with specified prefix. Prefixes shorter than
+	 * MIN_PREFIX_LENGTH match no words.
+	 * 
+	 * @param pref
+	 *            - prefix of the string values should contained in returned
+	 *            Iterable object.
+	 * @param offset
+	 *            - number of the words preceding the page.
+	 * @param limit
+	 *            - maximal number of the words in the page.
+	 * @return Iterable view containing the page of the lexicographically
+	 *         sorted dictionary words with specified prefix.
+	 */
+	public Iterable<String> wordsWithPrefix(String pref, int offset, int limit) {
+		if (pref.length() < MIN_PREFIX_LENGTH || offset < 0 || limit <= 0) {
+			return new ArrayList<>();
+		}
+		TrieQuery query = newQuery(pref, Order.LEXICOGRAPHIC);
+		query.setOffset(offset);
+		query.setLimit(limit);
+		return trie.query(query).getWords();
+	}
+
+	/**
+	 * Records that the specified word was selected by the user from the
+	 * completions, so it is ranked higher by rankedWordsWithPrefix().
+	 * Recording does not lock the dictionary and can be called concurrently
+	 * with the queries.
+	 * 
+	 * @param word
+	 *            - selected dictionary word.
+	 * @return true if the selection was recorded, false if the word is absent
+	 *         or the encapsulated Trie does not learn frequencies.
+	 */
+	public boolean recordSelection(String word) {
+		return trie.recordSelection(word);
+	}
+
+	/**
+	 * Returns an Iterable view containing the most frequently selected
+	 * dictionary words with specified prefix. Words of the same frequency are
+	 * sorted by length and lexicographically. Prefixes shorter than
+	 * MIN_PREFIX_LENGTH match no words.
+	 * 
+	 * @param pref
+	 *            - prefix of the string values should contained in returned
+	 *            Iterable object.
+	 * @param limit
+	 *            - maximal number of the words.
+	 * @return Iterable view containing the frequency ranked dictionary words
+	 *         with specified prefix.
+	 */
+	public Iterable<String> rankedWordsWithPrefix(String pref, int limit) {
+		if (pref.length() < MIN_PREFIX_LENGTH || limit <= 0) {
+			return new ArrayList<>();
+		}
+		TrieQuery query = newQuery(pref, Order.FREQUENCY);
+		query.setLimit(limit);
+		return trie.query(query).getWords();
+	}
+
+	/**
+	 * Schedules the periodic decay of the learned selection frequencies on
+	 * the specified scheduler, so the ranking follows the recent selections.
+	 * Each run halves the frequencies of all the dictionary words.
+	 * 
+	 * @param scheduler
+	 *            - scheduler running the decay sweep in the background.
+	 * @param period
+	 *            - period between the decay sweeps.
+	 * @param unit
+	 *            - time unit of the period.
+	 * @return future of the scheduled sweep, which cancels it.
+	 */
+	public ScheduledFuture<?> scheduleFrequencyDecay(ScheduledExecutorService scheduler, long period,
+			TimeUnit unit) {
+		return scheduler.scheduleAtFixedRate(() -> trie.decayFrequencies(), period, period, unit);
+	}
+
+	/**
+	 * Creates query for the dictionary words with specified prefix, i.e. for
+	 * the Trie keys not shorter than MIN_WORD_LENGTH.
+	 * 
+	 * @param pref
+	 *            - prefix of the words.
+	 * @param order
+	 *            - order of the query result.
+	 * @return query for the dictionary words.
+	 */
+	private TrieQuery newQuery(String pref, Order order) {
+		TrieQuery query = new TrieQuery(pref, order);
+		query.setMinLength(MIN_WORD_LENGTH);
+		return query;
+	}
+}
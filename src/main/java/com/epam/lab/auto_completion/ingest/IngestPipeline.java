@@ -0,0 +1,201 @@
+package com.epam.lab.auto_completion.ingest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.epam.lab.auto_completion.PrefixMatches;
+
+/**
+ * Pipeline filling out a dictionary from a character stream. Pipeline
+ * consists of three stages connected by the bounded queues of token batches:
+ * tokenizing stage reads raw tokens from the stream; normalizing stage
+ * normalizes them, drops rejected tokens and tokens already passed in the
+ * current ingest() call; writing stage, run by the calling thread, adds the
+ * batches of normalized terms to the dictionary. Stages run on separate
+ * threads, so parsing of the stream overlaps with the trie insertion. The
+ * dictionary is modified by the calling thread only. Terms are added as they
+ * are, without splitting them once again.
+ */
+public class IngestPipeline {
+	/**
+	 * Default number of the tokens passed between the stages at once.
+	 */
+	private static final int DEFAULT_BATCH_SIZE = 1024;
+	/**
+	 * Default number of the batches a queue between the stages can hold.
+	 */
+	private static final int DEFAULT_QUEUE_CAPACITY = 16;
+	/**
+	 * Batch marking the end of the stream. Compared by identity.
+	 */
+	private static final List<String> END_OF_STREAM = new ArrayList<>();
+
+	/**
+	 * Dictionary the normalized terms are added to.
+	 */
+	private final PrefixMatches dictionary;
+	private Tokenizer tokenizer = new WhitespaceTokenizer();
+	private TermNormalizer normalizer = StandardNormalizers.defaultChain();
+	private int batchSize = DEFAULT_BATCH_SIZE;
+	private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+
+	public IngestPipeline(PrefixMatches dictionary) {
+		super();
+		this.dictionary = dictionary;
+	}
+
+	public void setTokenizer(Tokenizer tokenizer) {
+		this.tokenizer = tokenizer;
+	}
+
+	public void setNormalizer(TermNormalizer normalizer) {
+		this.normalizer = normalizer;
+	}
+
+	public void setBatchSize(int batchSize) {
+		if (batchSize <= 0) {
+			throw new IllegalArgumentException("Non-positive batch size: " + batchSize);
+		}
+		this.batchSize = batchSize;
+	}
+
+	public void setQueueCapacity(int queueCapacity) {
+		if (queueCapacity <= 0) {
+			throw new IllegalArgumentException("Non-positive queue capacity: " + queueCapacity);
+		}
+		this.queueCapacity = queueCapacity;
+	}
+
+	/**
+	 * Reads the specified character stream to the end and adds its normalized
+	 * distinct terms to the dictionary. Reader is not closed.
+	 * 
+	 * @param reader
+	 *            - character stream to be ingested.
+	 * @return number of words accepted by the dictionary (see
+	 *         PrefixMatches.addWords()).
+	 * @throws IOException
+	 *             if reading of the stream fails.
+	 * @throws InterruptedException
+	 *             if the calling thread is interrupted.
+	 */
+	public int ingest(Reader reader) throws IOException, InterruptedException {
+		BlockingQueue<List<String>> tokenQ = new ArrayBlockingQueue<>(queueCapacity);
+		BlockingQueue<List<String>> termQ = new ArrayBlockingQueue<>(queueCapacity);
+		ExecutorService stages = Executors.newFixedThreadPool(2);
+		try {
+			Future<?> tokenizing = stages.submit(() -> {
+				tokenize(new BufferedReader(reader), tokenQ);
+				return null;
+			});
+			Future<?> normalizing = stages.submit(() -> {
+				normalize(tokenQ, termQ);
+				return null;
+			});
+			int count = 0;
+			for (List<String> batch = termQ.take(); batch != END_OF_STREAM; batch = termQ.take()) {
+				count += dictionary.addWords(batch);
+			}
+			// Normalizing stage is awaited first: if it failed, the tokenizing
+			// stage may be blocked on its full output queue
+			await(normalizing);
+			await(tokenizing);
+			return count;
+		} finally {
+			stages.shutdownNow();
+		}
+	}
+
+	/**
+	 * Tokenizing stage. Reads the tokens and puts them to the output queue by
+	 * batches. End of the stream batch is put even if the reading fails.
+	 * 
+	 * @param reader
+	 *            - character stream to be tokenized.
+	 * @param out
+	 *            - output queue.
+	 */
+	private void tokenize(Reader reader, BlockingQueue<List<String>> out) throws IOException, InterruptedException {
+		try {
+			List<String> batch = new ArrayList<>(batchSize);
+			for (String token = tokenizer.nextToken(reader); token != null; token = tokenizer.nextToken(reader)) {
+				batch.add(token);
+				if (batch.size() == batchSize) {
+					out.put(batch);
+					batch = new ArrayList<>(batchSize);
+				}
+			}
+			if (!batch.isEmpty()) {
+				out.put(batch);
+			}
+		} finally {
+			out.put(END_OF_STREAM);
+		}
+	}
+
+	/**
+	 * Normalizing stage. Normalizes the tokens, drops the rejected and the
+	 * repeated ones and puts the terms to the output queue by batches.
+	 * 
+	 * @param in
+	 *            - input queue.
+	 * @param out
+	 *            - output queue.
+	 */
+	private void normalize(BlockingQueue<List<String>> in, BlockingQueue<List<String>> out)
+			throws InterruptedException {
+		try {
+			Set<String> seen = new HashSet<>();
+			List<String> batch = new ArrayList<>(batchSize);
+			for (List<String> tokens = in.take(); tokens != END_OF_STREAM; tokens = in.take()) {
+				for (String token : tokens) {
+					String term = normalizer.normalize(token);
+					if (term != null && !term.isEmpty() && seen.add(term)) {
+						batch.add(term);
+					}
+				}
+				if (batch.size() >= batchSize) {
+					out.put(batch);
+					batch = new ArrayList<>(batchSize);
+				}
+			}
+			if (!batch.isEmpty()) {
+				out.put(batch);
+			}
+		} finally {
+			out.put(END_OF_STREAM);
+		}
+	}
+
+	/**
+	 * Waits for the stage completion and rethrows its failure.
+	 * 
+	 * @param stage
+	 *            - completed stage.
+	 */
+	private static void await(Future<?> stage) throws IOException, InterruptedException {
+		try {
+			stage.get();
+		} catch (ExecutionException ex) {
+			Throwable cause = ex.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IllegalStateException(cause);
+		}
+	}
+}
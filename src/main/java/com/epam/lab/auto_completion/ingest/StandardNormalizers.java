@@ -0,0 +1,83 @@
+package com.epam.lab.auto_completion.ingest;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Standard normalization steps of the ingest pipeline.
+ */
+public enum StandardNormalizers implements TermNormalizer {
+
+	/**
+	 * Converts the token to lower case.
+	 */
+	CASE_FOLDING {
+		public String normalize(String token) {
+			return token.toLowerCase(Locale.ROOT);
+		}
+	},
+	/**
+	 * Removes diacritical marks from the token letters ('é' becomes 'e').
+	 */
+	ACCENT_STRIPPING {
+		public String normalize(String token) {
+			if (isAscii(token)) {
+				return token;
+			}
+			String decomposed = Normalizer.normalize(token, Normalizer.Form.NFD);
+			return COMBINING_MARKS.matcher(decomposed).replaceAll("");
+		}
+	},
+	/**
+	 * Removes non-letter and non-digit chars from both ends of the token
+	 * ("word," becomes "word"). Tokens containing no letters or digits are
+	 * rejected.
+	 */
+	PUNCTUATION_TRIMMING {
+		public String normalize(String token) {
+			int begin = 0;
+			int end = token.length();
+			while (begin < end && !Character.isLetterOrDigit(token.charAt(begin))) {
+				begin++;
+			}
+			while (end > begin && !Character.isLetterOrDigit(token.charAt(end - 1))) {
+				end--;
+			}
+			return (begin == end) ? null : token.substring(begin, end);
+		}
+	};
+
+	/**
+	 * Pattern of the Unicode combining marks left by the canonical
+	 * decomposition of the accented letters.
+	 */
+	private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+	/**
+	 * Returns normalizer applying case folding, accent stripping and
+	 * punctuation trimming.
+	 * 
+	 * @return default normalizer of the ingest pipeline.
+	 */
+	public static TermNormalizer defaultChain() {
+		return CASE_FOLDING.andThen(ACCENT_STRIPPING).andThen(PUNCTUATION_TRIMMING);
+	}
+
+	/**
+	 * Checks if the string value consists of ASCII chars only, so it has
+	 * nothing to be decomposed.
+	 * 
+	 * @param token
+	 *            - string value to be checked.
+	 * @return Boolean value indicating if the string value is ASCII.
+	 */
+	private static boolean isAscii(String token) {
+		for (int i = 0; i < token.length(); i++) {
+			if (token.charAt(i) > 0x7F) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,34 @@
+package com.epam.lab.auto_completion.ingest;
+
+/**
+ * Normalization step of the ingest pipeline. Instance of the interface turns
+ * the raw token into the term to be added to the dictionary or rejects the
+ * token. Normalizers are chained by andThen() method.
+ */
+@FunctionalInterface
+public interface TermNormalizer {
+
+	/**
+	 * Returns normalized form of the specified token.
+	 * 
+	 * @param token
+	 *            - token to be normalized, not null.
+	 * @return normalized token, or null if the token is to be rejected.
+	 */
+	public String normalize(String token);
+
+	/**
+	 * Returns normalizer applying this normalizer and then the specified one.
+	 * Tokens rejected by this normalizer are not passed to the specified one.
+	 * 
+	 * @param next
+	 *            - normalizer to be applied after this one.
+	 * @return composed normalizer.
+	 */
+	public default TermNormalizer andThen(TermNormalizer next) {
+		return (token) -> {
+			String normalized = normalize(token);
+			return (normalized == null) ? null : next.normalize(normalized);
+		};
+	}
+}
@@ -0,0 +1,23 @@
+package com.epam.lab.auto_completion.ingest;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Tokenization step of the ingest pipeline. Instance of the interface splits
+ * the character stream into raw tokens.
+ */
+@FunctionalInterface
+public interface Tokenizer {
+
+	/**
+	 * Reads the next token from the specified reader.
+	 * 
+	 * @param reader
+	 *            - reader to read the token from.
+	 * @return next token, or null if the end of the stream is reached.
+	 * @throws IOException
+	 *             if an I/O error occurs.
+	 */
+	public String nextToken(Reader reader) throws IOException;
+}
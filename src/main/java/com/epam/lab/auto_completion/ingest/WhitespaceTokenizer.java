@@ -0,0 +1,37 @@
+package com.epam.lab.auto_completion.ingest;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Tokenizer splitting the character stream by whitespace chars. Punctuation
+ * stays attached to the tokens and is left to the normalizers.
+ */
+public class WhitespaceTokenizer implements Tokenizer {
+
+	/**
+	 * Reads the next sequence of non-whitespace chars from the specified
+	 * reader.
+	 * 
+	 * @param reader
+	 *            - reader to read the token from, should be buffered.
+	 * @return next token, or null if the end of the stream is reached.
+	 * @throws IOException
+	 *             if an I/O error occurs.
+	 */
+	public String nextToken(Reader reader) throws IOException {
+		int c;
+		do {
+			c = reader.read();
+		} while (c != -1 && Character.isWhitespace(c));
+		if (c == -1) {
+			return null;
+		}
+		StringBuilder token = new StringBuilder();
+		do {
+			token.append((char) c);
+			c = reader.read();
+		} while (c != -1 && !Character.isWhitespace(c));
+		return token.toString();
+	}
+}
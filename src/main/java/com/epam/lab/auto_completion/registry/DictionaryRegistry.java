@@ -0,0 +1,491 @@
+package com.epam.lab.auto_completion.registry;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import com.epam.lab.auto_completion.PrefixMatches;
+import com.epam.lab.auto_completion.trie.LayeredTrie;
+import com.epam.lab.auto_completion.trie.Trie;
+import com.epam.lab.auto_completion.trie.Trie.Tuple;
+
+/**
+ * Registry of many named dictionaries (tenants) sharing one read-only base
+ * trie. Every tenant dictionary is a PrefixMatches over a LayeredTrie, which
+ * keeps only the words the tenant added and the base words it deleted, so the
+ * memory of a tenant is proportional to its changes, not to the base size.
+ * Memory of the loaded tenants is estimated after every modification; when
+ * the total exceeds the memory limit, the least recently used tenants are
+ * unloaded to their files in the storage directory and loaded back on the next
+ * access. Dictionaries are accessed through withDictionary() only, as a
+ * dictionary may be unloaded as soon as the call returns. Calls for different
+ * tenants run concurrently, calls for the same tenant are serialized. Tenant
+ * files are read and written outside of the registry lock, holding only the
+ * lock of the tenant, so the file operations of one tenant stall the calls for
+ * that tenant only.
+ */
+public class DictionaryRegistry {
+
+	/**
+	 * Default limit of the estimated memory of the loaded tenants.
+	 */
+	private static final long DEFAULT_MEMORY_LIMIT = 256L * 1024 * 1024;
+	/**
+	 * Allowed tenant names, which are safe to be used as file names.
+	 */
+	private static final Pattern NAME_PATTERN = Pattern.compile("[A-Za-z0-9_-]+");
+	private static final String FILE_EXTENSION = ".delta";
+	private static final String TEMP_FILE_EXTENSION = ".tmp";
+	/**
+	 * Marks of the added and deleted words in the tenant file lines.
+	 */
+	private static final char ADDED = '+';
+	private static final char DELETED = '-';
+
+	/**
+	 * Loaded tenant dictionary with its memory estimation.
+	 */
+	private static class Tenant {
+		final String name;
+		final LayeredTrie<Integer> trie;
+		final PrefixMatches dictionary;
+		/**
+		 * Estimated memory of the tenant and the trie modification count it
+		 * was estimated at. Guarded by the tenant lock.
+		 */
+		long bytes;
+		int estimatedModCount = -1;
+		/**
+		 * Memory of the tenant included into the registry total. Guarded by
+		 * the registry lock.
+		 */
+		long accountedBytes;
+		/**
+		 * Set when the tenant is unloaded, so the callers, which obtained it
+		 * before, load it again.
+		 */
+		volatile boolean unloaded;
+
+		Tenant(String name, LayeredTrie<Integer> trie) {
+			this.name = name;
+			this.trie = trie;
+			this.dictionary = new PrefixMatches(trie);
+			estimate();
+		}
+
+		/**
+		 * Estimates the memory of the tenant if it was modified since the
+		 * last estimation.
+		 */
+		void estimate() {
+			if (estimatedModCount != trie.getModCount()) {
+				bytes = trie.estimatedBytes();
+				estimatedModCount = trie.getModCount();
+			}
+		}
+	}
+
+	/**
+	 * Base trie shared by the tenants.
+	 */
+	private final Trie<Integer> base;
+	/**
+	 * Directory of the unloaded tenant files.
+	 */
+	private final Path directory;
+	/**
+	 * Loaded tenants in the order of access, the least recently used first.
+	 * Guarded by the registry lock.
+	 */
+	private final LinkedHashMap<String, Tenant> loaded = new LinkedHashMap<>(16, 0.75f, true);
+	/**
+	 * Names of the tenants, whose files are being read or written. Calls for
+	 * these tenants wait until the file operation is complete. Guarded by
+	 * the registry lock.
+	 */
+	private final Set<String> busy = new HashSet<>();
+	private long memoryLimit = DEFAULT_MEMORY_LIMIT;
+	/**
+	 * Estimated memory of the loaded tenants. Guarded by the registry lock.
+	 */
+	private long usedBytes;
+	/**
+	 * Receives the failures of the automatic unloading, or null if they are
+	 * ignored.
+	 */
+	private volatile Consumer<IOException> evictionFailureHandler;
+
+	/**
+	 * Creates registry of the tenants layered over the specified base trie.
+	 * 
+	 * @param base
+	 *            - read-only trie shared by the tenants, e.g. a FrozenTrie or
+	 *            a FrontCodedTrie.
+	 * @param directory
+	 *            - existing directory the unloaded tenants are stored in.
+	 */
+	public DictionaryRegistry(Trie<Integer> base, Path directory) {
+		super();
+		this.base = base;
+		this.directory = directory;
+	}
+
+	/**
+	 * Sets limit of the estimated memory of the loaded tenants. The most
+	 * recently used tenant is never unloaded, even if it exceeds the limit
+	 * alone.
+	 * 
+	 * @param memoryLimit
+	 *            - memory limit in bytes, not negative.
+	 */
+	public void setMemoryLimit(long memoryLimit) {
+		if (memoryLimit < 0) {
+			throw new IllegalArgumentException("Negative memory limit: " + memoryLimit);
+		}
+		synchronized (this) {
+			this.memoryLimit = memoryLimit;
+		}
+	}
+
+	/**
+	 * Sets the receiver of the failures of the automatic unloading. Tenant,
+	 * which failed to be unloaded, stays loaded, and the call, which
+	 * triggered the unloading, returns its result regardless.
+	 * 
+	 * @param handler
+	 *            - receiver of the unloading failures, or null to ignore them.
+	 */
+	public void setEvictionFailureHandler(Consumer<IOException> handler) {
+		evictionFailureHandler = handler;
+	}
+
+	/**
+	 * Applies the specified action to the dictionary of the specified tenant.
+	 * Tenant is loaded from its file, or created empty, if it is not loaded.
+	 * After the action the memory of the tenant is estimated again and the
+	 * least recently used tenants are unloaded if the memory limit is
+	 * exceeded. Failures of the unloading do not affect the result (see
+	 * setEvictionFailureHandler()). Dictionary should not be used after the
+	 * action returns.
+	 * 
+	 * @param name
+	 *            - tenant name consisting of letters, digits, '_' and '-'.
+	 * @param action
+	 *            - action reading or modifying the dictionary.
+	 * @return result of the action.
+	 * @throws IOException
+	 *             if the tenant cannot be loaded.
+	 */
+	public <R> R withDictionary(String name, Function<PrefixMatches, R> action) throws IOException {
+		checkName(name);
+		while (true) {
+			Tenant tenant = acquire(name);
+			R result;
+			synchronized (tenant) {
+				if (tenant.unloaded) {
+					continue;
+				}
+				result = action.apply(tenant.dictionary);
+				tenant.estimate();
+			}
+			List<Tenant> victims;
+			synchronized (this) {
+				if (loaded.get(name) == tenant) {
+					usedBytes += tenant.bytes - tenant.accountedBytes;
+					tenant.accountedBytes = tenant.bytes;
+				}
+				victims = takeColdTenants();
+			}
+			for (Tenant victim : victims) {
+				try {
+					unload(victim);
+				} catch (IOException ex) {
+					Consumer<IOException> handler = evictionFailureHandler;
+					if (handler != null) {
+						handler.accept(ex);
+					}
+				}
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Returns the loaded tenant, loading it if required. Tenant file is read
+	 * outside of the registry lock.
+	 */
+	private Tenant acquire(String name) throws IOException {
+		synchronized (this) {
+			awaitIdle(name);
+			Tenant tenant = loaded.get(name);
+			if (tenant != null) {
+				return tenant;
+			}
+			busy.add(name);
+		}
+		Tenant tenant = null;
+		try {
+			tenant = load(name);
+		} finally {
+			synchronized (this) {
+				busy.remove(name);
+				if (tenant != null) {
+					loaded.put(name, tenant);
+					tenant.accountedBytes = tenant.bytes;
+					usedBytes += tenant.bytes;
+				}
+				notifyAll();
+			}
+		}
+		return tenant;
+	}
+
+	/**
+	 * Takes the least recently used tenants out of the loaded ones until the
+	 * memory of the remaining tenants fits the limit or only one tenant
+	 * remains. Taken tenants are marked busy until they are unloaded, so they
+	 * cannot be loaded concurrently from their outdated files. Called holding
+	 * the registry lock.
+	 * 
+	 * @return tenants to be unloaded.
+	 */
+	private List<Tenant> takeColdTenants() {
+		List<Tenant> victims = new ArrayList<>();
+		Iterator<Tenant> it = loaded.values().iterator();
+		while (usedBytes > memoryLimit && loaded.size() > 1) {
+			Tenant tenant = it.next();
+			it.remove();
+			usedBytes -= tenant.accountedBytes;
+			busy.add(tenant.name);
+			victims.add(tenant);
+		}
+		return victims;
+	}
+
+	/**
+	 * Unloads the specified tenant to its file if it is loaded.
+	 * 
+	 * @param name
+	 *            - tenant name.
+	 * @throws IOException
+	 *             if the tenant file cannot be written.
+	 */
+	public void unload(String name) throws IOException {
+		Tenant tenant;
+		synchronized (this) {
+			awaitIdle(name);
+			tenant = loaded.remove(name);
+			if (tenant == null) {
+				return;
+			}
+			usedBytes -= tenant.accountedBytes;
+			busy.add(name);
+		}
+		unload(tenant);
+	}
+
+	/**
+	 * Writes the tenant taken out of the loaded ones to its file. If the file
+	 * cannot be written, the tenant is loaded back.
+	 */
+	private void unload(Tenant tenant) throws IOException {
+		boolean stored = false;
+		try {
+			store(tenant);
+			stored = true;
+		} finally {
+			synchronized (this) {
+				busy.remove(tenant.name);
+				if (!stored) {
+					loaded.put(tenant.name, tenant);
+					usedBytes += tenant.accountedBytes;
+				}
+				notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Unloads all the tenants to their files, e.g. before shutdown.
+	 * 
+	 * @throws IOException
+	 *             if a tenant file cannot be written.
+	 */
+	public void unloadAll() throws IOException {
+		List<String> names;
+		synchronized (this) {
+			names = new ArrayList<>(loaded.keySet());
+		}
+		for (String name : names) {
+			unload(name);
+		}
+	}
+
+	/**
+	 * Waits until the file of the specified tenant is neither read nor
+	 * written. Called holding the registry lock.
+	 */
+	private void awaitIdle(String name) throws InterruptedIOException {
+		while (busy.contains(name)) {
+			try {
+				wait();
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted waiting for tenant " + name);
+			}
+		}
+	}
+
+	/**
+	 * Removes the specified tenant together with its file. Tenant is marked
+	 * busy while it is removed, so the calls for it wait, and the tenant lock
+	 * and the file are taken outside of the registry lock.
+	 * 
+	 * @param name
+	 *            - tenant name.
+	 * @return true if the tenant was loaded or stored.
+	 * @throws IOException
+	 *             if the tenant file cannot be deleted.
+	 */
+	public boolean remove(String name) throws IOException {
+		checkName(name);
+		Tenant tenant;
+		synchronized (this) {
+			awaitIdle(name);
+			tenant = loaded.remove(name);
+			if (tenant != null) {
+				usedBytes -= tenant.accountedBytes;
+			}
+			busy.add(name);
+		}
+		try {
+			if (tenant != null) {
+				synchronized (tenant) {
+					tenant.unloaded = true;
+				}
+			}
+			return Files.deleteIfExists(file(name)) || tenant != null;
+		} finally {
+			synchronized (this) {
+				busy.remove(name);
+				notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Returns true if the specified tenant is loaded.
+	 * 
+	 * @param name
+	 *            - tenant name.
+	 * @return Boolean value indicating if the tenant is loaded.
+	 */
+	public synchronized boolean isLoaded(String name) {
+		return loaded.containsKey(name);
+	}
+
+	/**
+	 * Returns the estimated memory of the specified tenant, i.e. of its
+	 * changes to the base, as of the end of the last withDictionary() call.
+	 * 
+	 * @param name
+	 *            - tenant name.
+	 * @return estimated memory of the tenant in bytes, zero if the tenant is
+	 *         not loaded.
+	 */
+	public synchronized long memoryUsage(String name) {
+		Tenant tenant = loaded.get(name);
+		return (tenant == null) ? 0 : tenant.accountedBytes;
+	}
+
+	/**
+	 * Returns the estimated memory of all the loaded tenants, excluding the
+	 * shared base.
+	 * 
+	 * @return estimated memory of the loaded tenants in bytes.
+	 */
+	public synchronized long memoryUsage() {
+		return usedBytes;
+	}
+
+	/**
+	 * Reads the tenant from its file, or creates an empty one if there is no
+	 * file. Each file line is a word marked as added or as deleted from the
+	 * base.
+	 */
+	private Tenant load(String name) throws IOException {
+		LayeredTrie<Integer> trie = new LayeredTrie<>(base);
+		Path file = file(name);
+		if (Files.exists(file)) {
+			try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.US_ASCII)) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					if (line.isEmpty()) {
+						continue;
+					}
+					String word = line.substring(1);
+					if (line.charAt(0) == ADDED) {
+						trie.add(new Tuple<Integer>(word, word.length()));
+					} else if (line.charAt(0) == DELETED) {
+						trie.delete(word);
+					} else {
+						throw new IOException("Malformed line of " + file + ": " + line);
+					}
+				}
+			}
+		}
+		return new Tenant(name, trie);
+	}
+
+	/**
+	 * Writes the tenant changes to its file and marks the tenant unloaded.
+	 * File is replaced atomically, so a failed write leaves the previous
+	 * state. Called without the registry lock; the tenant lock waits for the
+	 * calls, which obtained the tenant before it was taken out.
+	 */
+	private void store(Tenant tenant) throws IOException {
+		synchronized (tenant) {
+			Path file = file(tenant.name);
+			Path tempFile = directory.resolve(tenant.name + TEMP_FILE_EXTENSION);
+			List<String> deleted = new ArrayList<>(tenant.trie.getTombstones());
+			try (BufferedWriter writer = Files.newBufferedWriter(tempFile, StandardCharsets.US_ASCII)) {
+				for (String word : tenant.trie.getDelta().words()) {
+					writer.write(ADDED);
+					writer.write(word);
+					writer.newLine();
+				}
+				for (String word : deleted) {
+					writer.write(DELETED);
+					writer.write(word);
+					writer.newLine();
+				}
+			}
+			Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			tenant.unloaded = true;
+		}
+	}
+
+	private Path file(String name) {
+		return directory.resolve(name + FILE_EXTENSION);
+	}
+
+	private static void checkName(String name) {
+		if (name == null || !NAME_PATTERN.matcher(name).matches()) {
+			throw new IllegalArgumentException("Invalid tenant name: " + name);
+		}
+	}
+}
@@ -0,0 +1,326 @@
+package com.epam.lab.auto_completion.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+import com.epam.lab.auto_completion.PrefixMatches;
+import com.epam.lab.auto_completion.trie.QueryBudget;
+import com.epam.lab.auto_completion.trie.QueryResult;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Lightweight HTTP server exposing a PrefixMatches dictionary. Server is
+ * built on the JDK HttpServer and handles the following requests:
+ * <ul>
+ * <li>POST /add - adds the words of the request body, responds with the
+ * number of the added words;</li>
+ * <li>GET /contains?word=... - responds with true or false;</li>
+ * <li>POST /delete?word=... - responds with true or false;</li>
+ * <li>GET /complete?prefix=...&amp;k=... - responds with the words of
+ * wordsWithPrefix(prefix, k), one per line.</li>
+ * </ul>
+ * Concurrent identical completion requests are coalesced into one dictionary
+ * query. Dictionary is guarded by a read-write lock, so queries run in
+ * parallel and modifications run exclusively. Requests are handled by the
+ * executor passed to the constructor; on JDK 21 and later a virtual thread per
+ * task executor can be passed. JDK HttpServer sends the response headers and
+ * body in separate packets, so the sun.net.httpserver.nodelay system property
+ * should be set to true to avoid the delayed acknowledgement stalls. Completion
+ * queries can be limited by a timeout, so a slow query responds with the words
+ * found so far instead of occupying the handler thread; such a response
+ * carries the X-Truncated: true header. Invalid requests are answered with
+ * status 400, failed ones with status 500.
+ */
+public class CompletionServer {
+
+	private static final int STATUS_OK = 200;
+	private static final int STATUS_BAD_REQUEST = 400;
+	private static final int STATUS_NOT_FOUND = 404;
+	private static final int STATUS_BAD_METHOD = 405;
+	private static final int STATUS_SERVER_ERROR = 500;
+	private static final String METHOD_GET = "GET";
+	private static final String METHOD_POST = "POST";
+	private static final String CONTENT_TYPE = "text/plain; charset=utf-8";
+	private static final String LINE_SEPARATOR = "\n";
+	/**
+	 * Response header flagging the completions truncated by the timeout.
+	 */
+	private static final String TRUNCATED_HEADER = "X-Truncated";
+
+	private final PrefixMatches dictionary;
+	private final HttpServer server;
+	/**
+	 * Executor created by this server, or null if it was passed to the
+	 * constructor.
+	 */
+	private final ExecutorService ownExecutor;
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final RequestCoalescer<String, QueryResult> completions = new RequestCoalescer<>();
+	/**
+	 * Timeout of the completion queries in nanoseconds, zero if the queries
+	 * are not limited.
+	 */
+	private volatile long queryTimeoutNanos;
+
+	/**
+	 * Creates server handling requests by a cached thread pool.
+	 * 
+	 * @param dictionary
+	 *            - dictionary to be exposed.
+	 * @param address
+	 *            - address to listen on, port 0 stands for any free port.
+	 * @throws IOException
+	 *             if the address cannot be bound.
+	 */
+	public CompletionServer(PrefixMatches dictionary, InetSocketAddress address) throws IOException {
+		this(dictionary, address, null);
+	}
+
+	/**
+	 * Creates server handling requests by the specified executor.
+	 * 
+	 * @param dictionary
+	 *            - dictionary to be exposed.
+	 * @param address
+	 *            - address to listen on, port 0 stands for any free port.
+	 * @param executor
+	 *            - executor of the request handlers, or null for a cached
+	 *            thread pool owned by the server.
+	 * @throws IOException
+	 *             if the address cannot be bound.
+	 */
+	public CompletionServer(PrefixMatches dictionary, InetSocketAddress address, Executor executor)
+			throws IOException {
+		super();
+		this.dictionary = dictionary;
+		ownExecutor = (executor == null) ? Executors.newCachedThreadPool() : null;
+		server = HttpServer.create(address, 0);
+		server.setExecutor((executor == null) ? ownExecutor : executor);
+		server.createContext("/add", handler(METHOD_POST, this::add));
+		server.createContext("/contains", handler(METHOD_GET, this::contains));
+		server.createContext("/delete", handler(METHOD_POST, this::delete));
+		server.createContext("/complete", handler(METHOD_GET, this::complete));
+	}
+
+	public void start() {
+		server.start();
+	}
+
+	/**
+	 * Sets timeout of the completion queries. Query exceeding the timeout
+	 * responds with the words found so far.
+	 * 
+	 * @param timeout
+	 *            - timeout of the queries, zero for the unlimited queries.
+	 * @param unit
+	 *            - time unit of the timeout.
+	 */
+	public void setQueryTimeout(long timeout, TimeUnit unit) {
+		if (timeout < 0) {
+			throw new IllegalArgumentException("Negative timeout: " + timeout);
+		}
+		queryTimeoutNanos = unit.toNanos(timeout);
+	}
+
+	/**
+	 * Stops the server, waiting at most the specified number of seconds for
+	 * the requests in progress.
+	 * 
+	 * @param delaySeconds
+	 *            - maximal waiting time in seconds.
+	 */
+	public void stop(int delaySeconds) {
+		server.stop(delaySeconds);
+		if (ownExecutor != null) {
+			ownExecutor.shutdown();
+		}
+	}
+
+	/**
+	 * Returns address the server listens on.
+	 * 
+	 * @return bound address.
+	 */
+	public InetSocketAddress getAddress() {
+		return server.getAddress();
+	}
+
+	/**
+	 * Request handling function, which returns the response body or throws
+	 * IllegalArgumentException for invalid request.
+	 */
+	@FunctionalInterface
+	private interface Action {
+		String handle(HttpExchange exchange) throws IOException;
+	}
+
+	/**
+	 * Wraps the action into the handler, which checks the request method and
+	 * writes the response. Failures of the coalesced queries are unwrapped
+	 * from CompletionException, so every failure is answered: invalid
+	 * request with status 400, any other failure with status 500.
+	 * 
+	 * @param method
+	 *            - allowed request method.
+	 * @param action
+	 *            - request handling function.
+	 * @return handler of the requests.
+	 */
+	private HttpHandler handler(String method, Action action) {
+		return (exchange) -> {
+			try {
+				if (!exchange.getRequestURI().getPath().equals(exchange.getHttpContext().getPath())) {
+					respond(exchange, STATUS_NOT_FOUND, "Not found");
+				} else if (!method.equals(exchange.getRequestMethod())) {
+					respond(exchange, STATUS_BAD_METHOD, "Method not allowed");
+				} else {
+					respond(exchange, STATUS_OK, action.handle(exchange));
+				}
+			} catch (RuntimeException ex) {
+				Throwable cause = (ex instanceof CompletionException && ex.getCause() != null) ? ex.getCause() : ex;
+				if (cause instanceof IllegalArgumentException) {
+					respond(exchange, STATUS_BAD_REQUEST, String.valueOf(cause.getMessage()));
+				} else {
+					respond(exchange, STATUS_SERVER_ERROR, "Internal server error");
+				}
+			} finally {
+				exchange.close();
+			}
+		};
+	}
+
+	private String add(HttpExchange exchange) throws IOException {
+		String body = readBody(exchange.getRequestBody());
+		return String.valueOf(write(() -> dictionary.add(body)));
+	}
+
+	private String contains(HttpExchange exchange) {
+		String word = parameter(exchange, "word");
+		return String.valueOf(read(() -> dictionary.contains(word)));
+	}
+
+	private String delete(HttpExchange exchange) {
+		String word = parameter(exchange, "word");
+		return String.valueOf(write(() -> dictionary.delete(word)));
+	}
+
+	private String complete(HttpExchange exchange) {
+		String prefix = parameter(exchange, "prefix");
+		Map<String, String> parameters = parameters(exchange);
+		int k;
+		try {
+			k = parameters.containsKey("k") ? Integer.parseInt(parameters.get("k")) : -1;
+		} catch (NumberFormatException ex) {
+			throw new IllegalArgumentException("Invalid parameter k");
+		}
+		QueryResult result = completions.execute(k + ":" + prefix, () -> read(() -> {
+			QueryBudget budget = null;
+			long timeoutNanos = queryTimeoutNanos;
+			if (timeoutNanos > 0) {
+				budget = new QueryBudget();
+				budget.setTimeout(timeoutNanos, TimeUnit.NANOSECONDS);
+			}
+			return (k < 0) ? dictionary.wordsWithPrefix(prefix, budget) : dictionary.wordsWithPrefix(prefix, k, budget);
+		}));
+		if (result.isTruncated()) {
+			exchange.getResponseHeaders().set(TRUNCATED_HEADER, "true");
+		}
+		return String.join(LINE_SEPARATOR, result.getWords());
+	}
+
+	private <V> V read(Supplier<V> query) {
+		lock.readLock().lock();
+		try {
+			return query.get();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private <V> V write(Supplier<V> modification) {
+		lock.writeLock().lock();
+		try {
+			return modification.get();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns the value of the required request parameter.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if the parameter is absent.
+	 */
+	private static String parameter(HttpExchange exchange, String name) {
+		String value = parameters(exchange).get(name);
+		if (value == null) {
+			throw new IllegalArgumentException("Missing parameter " + name);
+		}
+		return value;
+	}
+
+	/**
+	 * Parses the query string of the request URI.
+	 * 
+	 * @param exchange
+	 *            - HTTP exchange.
+	 * @return request parameters by names.
+	 */
+	private static Map<String, String> parameters(HttpExchange exchange) {
+		Map<String, String> parameters = new HashMap<>();
+		String query = exchange.getRequestURI().getRawQuery();
+		if (query == null) {
+			return parameters;
+		}
+		try {
+			for (String pair : query.split("&")) {
+				int eq = pair.indexOf('=');
+				if (eq > 0) {
+					parameters.put(URLDecoder.decode(pair.substring(0, eq), "UTF-8"),
+							URLDecoder.decode(pair.substring(eq + 1), "UTF-8"));
+				}
+			}
+		} catch (UnsupportedEncodingException ex) {
+			throw new IllegalStateException(ex);
+		}
+		return parameters;
+	}
+
+	private static String readBody(InputStream in) throws IOException {
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		for (int n = in.read(buffer); n != -1; n = in.read(buffer)) {
+			body.write(buffer, 0, n);
+		}
+		return new String(body.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+		// Zero length stands for the chunked response, -1 for the empty one
+		exchange.sendResponseHeaders(status, (bytes.length == 0) ? -1 : bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package com.epam.lab.auto_completion.server;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical requests. The first thread requesting a key
+ * computes the result, while the threads requesting the same key during the
+ * computation wait for and share its result instead of repeating the
+ * computation. Results are not cached: the request arriving after the
+ * computation completion computes the result anew.
+ * 
+ * @param <K>
+ *            - the type of request keys
+ * @param <V>
+ *            - the type of request results
+ */
+public class RequestCoalescer<K, V> {
+
+	/**
+	 * Results of the requests in progress.
+	 */
+	private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+	/**
+	 * Returns the result of the request with the specified key. If the request
+	 * with the same key is in progress, waits for its result; otherwise
+	 * computes the result by the specified supplier.
+	 * 
+	 * @param key
+	 *            - request key.
+	 * @param computation
+	 *            - computation of the request result.
+	 * @return result of the request.
+	 * @throws CompletionException
+	 *             wrapping the exception thrown by the computation.
+	 */
+	public V execute(K key, Supplier<V> computation) {
+		CompletableFuture<V> own = new CompletableFuture<>();
+		CompletableFuture<V> running = inFlight.putIfAbsent(key, own);
+		if (running != null) {
+			return running.join();
+		}
+		try {
+			V result = computation.get();
+			own.complete(result);
+			return result;
+		} catch (RuntimeException | Error ex) {
+			own.completeExceptionally(ex);
+			throw ex;
+		} finally {
+			inFlight.remove(key, own);
+		}
+	}
+
+	/**
+	 * Returns number of the requests in progress.
+	 * 
+	 * @return number of the requests in progress.
+	 */
+	public int inFlight() {
+		return inFlight.size();
+	}
+}
@@ -0,0 +1,337 @@
+package com.epam.lab.auto_completion.trie;
+
+import java.util.ArrayList;
+import java.util.stream.Stream;
+
+/**
+ * Implementation of Trie interface, which puts counting Bloom filters in front
+ * of another Trie instance. One filter contains all the keys of the trie, the
+ * other contains all the key prefixes not longer than the configured length.
+ * contains() calls for absent keys and wordsWithPrefix() calls for absent
+ * prefixes are mostly answered by a few hash computations without calling the
+ * encapsulated trie. Filters are kept up to date by add() and delete() calls,
+ * so the encapsulated trie should not be modified directly. add() and
+ * delete() synchronize on this instance, so the filter counters are updated
+ * by one writer at a time and no concurrent update is lost.
+ * 
+ * @param <T>
+ *            - the type of mapped values
+ */
+public class BloomFilteredTrie<T> implements Trie<T> {
+
+	/**
+	 * Default probability of the false 'might contain' answer of the filters.
+	 */
+	private static final double DEFAULT_FALSE_POSITIVE_RATE = 0.01;
+
+	/**
+	 * Encapsulated trie, to which the calls passed through the filters are
+	 * delegated.
+	 */
+	private final Trie<T> trie;
+	/**
+	 * Filter of the keys.
+	 */
+	private final CountingBloomFilter wordFilter;
+	/**
+	 * Filter of the key prefixes not longer than prefixLength.
+	 */
+	private final CountingBloomFilter prefixFilter;
+	/**
+	 * Maximal length of the prefixes contained in the prefix filter.
+	 */
+	private final int prefixLength;
+
+	/**
+	 * Creates filtered trie with default false positive rate of the filters.
+	 * 
+	 * @param trie
+	 *            - trie to be filtered.
+	 * @param expectedWords
+	 *            - expected number of the keys in the trie.
+	 * @param prefixLength
+	 *            - maximal length of the prefixes kept in the prefix filter.
+	 */
+	public BloomFilteredTrie(Trie<T> trie, int expectedWords, int prefixLength) {
+		this(trie, expectedWords, prefixLength, DEFAULT_FALSE_POSITIVE_RATE);
+	}
+
+	/**
+	 * Creates filtered trie. Keys already contained in the passing trie are
+	 * added to the filters. Prefix filter is sized for expectedWords *
+	 * prefixLength prefixes, limited by the maximal filter size.
+	 * 
+	 * @param trie
+	 *            - trie to be filtered.
+	 * @param expectedWords
+	 *            - expected number of the keys in the trie.
+	 * @param prefixLength
+	 *            - maximal length of the prefixes kept in the prefix filter.
+	 * @param falsePositiveRate
+	 *            - desired probability of the false 'might contain' answer of
+	 *            the filters.
+	 */
+	public BloomFilteredTrie(Trie<T> trie, int expectedWords, int prefixLength, double falsePositiveRate) {
+		super();
+		if (expectedWords <= 0) {
+			throw new IllegalArgumentException("Non-positive number of words: " + expectedWords);
+		}
+		if (prefixLength <= 0) {
+			throw new IllegalArgumentException("Non-positive prefix length: " + prefixLength);
+		}
+		this.trie = trie;
+		this.prefixLength = prefixLength;
+		wordFilter = new CountingBloomFilter(expectedWords, falsePositiveRate);
+		long expectedPrefixes = Math.min((long) expectedWords * prefixLength, CountingBloomFilter.MAX_SIZE);
+		prefixFilter = new CountingBloomFilter((int) expectedPrefixes, falsePositiveRate);
+		for (String word : trie.words()) {
+			addToFilters(word);
+		}
+	}
+
+	/**
+	 * Associates the specified value with the specified key in the
+	 * encapsulated trie and adds the key and its prefixes to the filters if
+	 * the key was absent. The key is regarded as added if the size of the
+	 * encapsulated trie has grown, so the trie is descended only once.
+	 * 
+	 * @param tuple
+	 *            - object encapsulating key with which the specified value is
+	 *            to be associated and value to be associated with the specified
+	 *            key.
+	 */
+	public synchronized void add(Trie.Tuple<T> tuple) {
+		int initSize = trie.size();
+		trie.add(tuple);
+		if (trie.size() != initSize) {
+			addToFilters(tuple.getTerm());
+		}
+	}
+
+	/**
+	 * Returns true if this trie contains a mapping for the specified word.
+	 * Words rejected by the word filter are not looked up in the encapsulated
+	 * trie.
+	 * 
+	 * @param word
+	 *            - key whose presence in this trie is to be tested
+	 * @return Boolean value indicating if the mapping exists for the specified
+	 *         key.
+	 */
+	public boolean contains(String word) {
+		if (word == null || !wordFilter.mightContain(word)) {
+			return false;
+		}
+		return trie.contains(word);
+	}
+
+	/**
+	 * Removes the mapping for a key from the encapsulated trie and removes the
+	 * key and its prefixes from the filters if the key was found.
+	 * 
+	 * @param word
+	 *            - key whose mapping is to be removed from the trie
+	 * @return true if key to delete was found in the trie.
+	 */
+	public synchronized boolean delete(String word) {
+		if (word == null || !wordFilter.mightContain(word)) {
+			return false;
+		}
+		if (trie.delete(word)) {
+			wordFilter.remove(word);
+			for (int i = 1; i <= Math.min(word.length(), prefixLength); i++) {
+				prefixFilter.remove(word, i);
+			}
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Adds the specified key and its prefixes to the filters.
+	 * 
+	 * @param word
+	 *            - key to be added.
+	 */
+	private void addToFilters(String word) {
+		wordFilter.add(word);
+		for (int i = 1; i <= Math.min(word.length(), prefixLength); i++) {
+			prefixFilter.add(word, i);
+		}
+	}
+
+	/**
+	 * Returns true if no key of this trie starts with the specified prefix
+	 * according to the prefix filter.
+	 * 
+	 * @param pref
+	 *            - prefix to be tested.
+	 * @return Boolean value indicating that the prefix is definitely absent.
+	 */
+	private boolean isDeadPrefix(String pref) {
+		return pref != null && pref.length() > 0
+				&& !prefixFilter.mightContain(pref, Math.min(pref.length(), prefixLength));
+	}
+
+	/**
+	 * Returns an Iterable view of the string keys contained in this trie.
+	 * 
+	 * @return an Iterable view of the string keys contained in this trie.
+	 */
+	public Iterable<String> words() {
+		return trie.words();
+	}
+
+	/**
+	 * Returns an Iterable view of the string keys with a specific prefix
+	 * contained in this trie. Prefixes rejected by the prefix filter are not
+	 * looked up in the encapsulated trie.
+	 * 
+	 * @param pref
+	 *            - prefix of the string values should contained in returned
+	 *            Iterable object.
+	 * @return an Iterable view of the string keys with a specific prefix
+	 *         contained in this trie.
+	 */
+	public Iterable<String> wordsWithPrefix(String pref) {
+		if (isDeadPrefix(pref)) {
+			return new ArrayList<>();
+		}
+		return trie.wordsWithPrefix(pref);
+	}
+
+	/**
+	 * Returns number of the string keys with a specific prefix contained in
+	 * this trie. Prefixes rejected by the prefix filter are not looked up in
+	 * the encapsulated trie.
+	 * 
+	 * @param pref
+	 *            - prefix of the string keys to be counted.
+	 * @return number of the string keys with a specific prefix.
+	 */
+	public int countWithPrefix(String pref) {
+		return isDeadPrefix(pref) ? 0 : trie.countWithPrefix(pref);
+	}
+
+	/**
+	 * Returns the page of the lexicographically sorted string keys with a
+	 * specific prefix contained in this trie. Prefixes rejected by the prefix
+	 * filter are not looked up in the encapsulated trie.
+	 * 
+	 * @param pref
+	 *            - prefix of the string values should contained in returned
+	 *            Iterable object.
+	 * @param offset
+	 *            - number of the keys preceding the page.
+	 * @param limit
+	 *            - maximal number of the keys in the page.
+	 * @return an Iterable view of the page of the string keys with a specific
+	 *         prefix.
+	 */
+	public Iterable<String> wordsWithPrefix(String pref, int offset, int limit) {
+		if (isDeadPrefix(pref)) {
+			return new ArrayList<>();
+		}
+		return trie.wordsWithPrefix(pref, offset, limit);
+	}
+
+	/**
+	 * Returns an Iterable view of the shortest string keys with a specific
+	 * prefix contained in this trie. Prefixes rejected by the prefix filter
+	 * are not looked up in the encapsulated trie.
+	 * 
+	 * @param pref
+	 *            - prefix of the string values should contained in returned
+	 *            Iterable object.
+	 * @param limit
+	 *            - maximal number of the keys.
+	 * @return an Iterable view of the shortest string keys with a specific
+	 *         prefix.
+	 */
+	public Iterable<String> shortestWithPrefix(String pref, int limit) {
+		if (isDeadPrefix(pref)) {
+			return new ArrayList<>();
+		}
+		return trie.shortestWithPrefix(pref, limit);
+	}
+
+	/**
+	 * Returns the result of the specified query for the string keys with a
+	 * specific prefix. Prefixes rejected by the prefix filter are not looked
+	 * up in the encapsulated trie.
+	 * 
+	 * @param query
+	 *            - query to be performed.
+	 * @return result of the query.
+	 */
+	public QueryResult query(TrieQuery query) {
+		if (isDeadPrefix(query.getPrefix())) {
+			return query.select(new ArrayList<>());
+		}
+		return trie.query(query);
+	}
+
+	/**
+	 * Records the selection of the key in the encapsulated trie. Keys
+	 * rejected by the word filter are not looked up.
+	 * 
+	 * @param word
+	 *            - selected key.
+	 * @return true if the selection was recorded.
+	 */
+	public boolean recordSelection(String word) {
+		if (word == null || !wordFilter.mightContain(word)) {
+			return false;
+		}
+		return trie.recordSelection(word);
+	}
+
+	/**
+	 * Returns the selection frequency of the key learned by the encapsulated
+	 * trie. Keys rejected by the word filter are not looked up.
+	 * 
+	 * @param word
+	 *            - key whose frequency is to be returned.
+	 * @return selection frequency of the key, zero if the key is absent.
+	 */
+	public int frequency(String word) {
+		if (word == null || !wordFilter.mightContain(word)) {
+			return 0;
+		}
+		return trie.frequency(word);
+	}
+
+	/**
+	 * Decays the selection frequencies learned by the encapsulated trie.
+	 */
+	public void decayFrequencies() {
+		trie.decayFrequencies();
+	}
+
+	/**
+	 * Returns a sequential Stream of the string keys with a specific prefix
+	 * contained in this trie. Prefixes rejected by the prefix filter are not
+	 * looked up in the encapsulated trie.
+	 * 
+	 * @param pref
+	 *            - prefix of the string values should contained in returned
+	 *            Stream.
+	 * @return a Stream of the string keys with a specific prefix contained in
+	 *         this trie.
+	 */
+	public Stream<String> stream(String pref) {
+		if (isDeadPrefix(pref)) {
+			return Stream.empty();
+		}
+		return trie.stream(pref);
+	}
+
+	/**
+	 * Returns the number of key-value mappings in this trie.
+	 * 
+	 * @return the number of key-value mappings in this trie.
+	 */
+	public int size() {
+		return trie.size();
+	}
+}
@@ -0,0 +1,199 @@
+package com.epam.lab.auto_completion.trie;
+
+/**
+ * Counting Bloom filter of the string values. Instance of the class answers
+ * whether a string value might have been added to it or was definitely not
+ * added. Each string value is mapped to several counters, which are
+ * incremented on addition and decremented on removal, so the values can be
+ * removed from the filter. Counters are one byte long and saturate at their
+ * maximal value; saturated counter is never decremented, which only keeps the
+ * answer 'might contain' for the values mapped to it. Counters are updated
+ * without synchronization, so add() and remove() calls should be serialized
+ * by the caller; a lost update could make a counter of a present value zero.
+ */
+public class CountingBloomFilter {
+
+	/**
+	 * Maximal number of the counters, the largest array length supported by
+	 * the virtual machines.
+	 */
+	static final int MAX_SIZE = Integer.MAX_VALUE - 8;
+	/**
+	 * Maximal value of the counter.
+	 */
+	private static final int COUNTER_MAX = 0xFF;
+	/**
+	 * FNV-1a 64-bit offset basis.
+	 */
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+	/**
+	 * FNV-1a 64-bit prime.
+	 */
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	/**
+	 * Counters of the filter.
+	 */
+	private final byte[] counters;
+	/**
+	 * Number of the counters each value is mapped to.
+	 */
+	private final int hashCount;
+
+	/**
+	 * Creates filter sized for the specified number of values, which answers
+	 * 'might contain' for an absent value with the specified probability.
+	 * 
+	 * @param expectedInsertions
+	 *            - expected number of the values in the filter.
+	 * @param falsePositiveRate
+	 *            - desired probability of the 'might contain' answer for an
+	 *            absent value, from 0 to 1 exclusive.
+	 */
+	public CountingBloomFilter(int expectedInsertions, double falsePositiveRate) {
+		super();
+		if (expectedInsertions <= 0) {
+			throw new IllegalArgumentException("Non-positive number of insertions: " + expectedInsertions);
+		}
+		if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+			throw new IllegalArgumentException("False positive rate out of (0, 1): " + falsePositiveRate);
+		}
+		double ln2 = Math.log(2);
+		long size = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (ln2 * ln2));
+		counters = new byte[(int) Math.min(Math.max(size, Long.SIZE), MAX_SIZE)];
+		hashCount = Math.max(1, (int) Math.round((double) counters.length / expectedInsertions * ln2));
+	}
+
+	/**
+	 * Adds the specified string value to this filter.
+	 * 
+	 * @param value
+	 *            - string value to be added.
+	 */
+	public void add(String value) {
+		add(value, value.length());
+	}
+
+	/**
+	 * Adds the prefix of the specified length of the specified string value to
+	 * this filter.
+	 * 
+	 * @param value
+	 *            - string value, whose prefix is to be added.
+	 * @param length
+	 *            - length of the prefix.
+	 */
+	public void add(String value, int length) {
+		long hash = hash(value, length);
+		for (int i = 0; i < hashCount; i++) {
+			int index = index(hash, i);
+			if ((counters[index] & COUNTER_MAX) != COUNTER_MAX) {
+				counters[index]++;
+			}
+		}
+	}
+
+	/**
+	 * Removes the specified string value from this filter. Value should be
+	 * previously added to the filter.
+	 * 
+	 * @param value
+	 *            - string value to be removed.
+	 */
+	public void remove(String value) {
+		remove(value, value.length());
+	}
+
+	/**
+	 * Removes the prefix of the specified length of the specified string value
+	 * from this filter. Prefix should be previously added to the filter.
+	 * 
+	 * @param value
+	 *            - string value, whose prefix is to be removed.
+	 * @param length
+	 *            - length of the prefix.
+	 */
+	public void remove(String value, int length) {
+		long hash = hash(value, length);
+		for (int i = 0; i < hashCount; i++) {
+			int index = index(hash, i);
+			int counter = counters[index] & COUNTER_MAX;
+			if (counter != 0 && counter != COUNTER_MAX) {
+				counters[index]--;
+			}
+		}
+	}
+
+	/**
+	 * Returns false if the specified string value was definitely not added to
+	 * this filter.
+	 * 
+	 * @param value
+	 *            - string value to be tested.
+	 * @return false if the value is absent, true if the value might be
+	 *         present.
+	 */
+	public boolean mightContain(String value) {
+		return mightContain(value, value.length());
+	}
+
+	/**
+	 * Returns false if the prefix of the specified length of the specified
+	 * string value was definitely not added to this filter.
+	 * 
+	 * @param value
+	 *            - string value, whose prefix is to be tested.
+	 * @param length
+	 *            - length of the prefix.
+	 * @return false if the prefix is absent, true if the prefix might be
+	 *         present.
+	 */
+	public boolean mightContain(String value, int length) {
+		long hash = hash(value, length);
+		for (int i = 0; i < hashCount; i++) {
+			if (counters[index(hash, i)] == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns index of the counter the hash is mapped to by the specified hash
+	 * function. Hash functions are derived from two halves of the hash by
+	 * double hashing.
+	 * 
+	 * @param hash
+	 *            - 64-bit hash of the value.
+	 * @param i
+	 *            - number of the hash function.
+	 * @return index of the counter.
+	 */
+	private int index(long hash, int i) {
+		int combined = (int) hash + i * (int) (hash >>> 32);
+		return (combined & Integer.MAX_VALUE) % counters.length;
+	}
+
+	/**
+	 * Computes 64-bit hash of the prefix of the specified string value: FNV-1a
+	 * hash of the chars, finalized by MurmurHash3 mixing function.
+	 * 
+	 * @param value
+	 *            - string value.
+	 * @param length
+	 *            - length of the prefix to be hashed.
+	 * @return 64-bit hash of the prefix.
+	 */
+	private static long hash(String value, int length) {
+		long hash = FNV_OFFSET_BASIS;
+		for (int i = 0; i < length; i++) {
+			hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+		}
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+}
@@ -0,0 +1,493 @@
+package com.epam.lab.auto_completion.trie;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Read-only implementation of Trie interface, which stores the lexicographically
+ * sorted keys front-coded in a single byte array. Keys are grouped in blocks of
+ * BLOCK_SIZE keys. Every key is stored as the length of the prefix it shares
+ * with the preceding key of the block, the length of the rest of the key and
+ * the rest chars, one byte per char; the first key of the block shares nothing,
+ * so it is stored as a whole and serves as the block header. Keys with a
+ * specific prefix form a contiguous range, which is found by binary search over
+ * the block headers and then scanned. Sorted keys share long prefixes, so the
+ * storage is several times smaller than any pointer based trie, for the price
+ * of the block scan on every lookup. Alphabet of the class is the same as
+ * RWayTrie alphabet; keys are at most MAX_KEY_LENGTH chars long.
+ * 
+ * @param <T>
+ *            - the type of mapped values
+ */
+public class FrontCodedTrie<T> implements Trie<T> {
+
+	/**
+	 * Number of the keys in one block.
+	 */
+	static final int BLOCK_SIZE = 16;
+	/**
+	 * Maximal key length, as the lengths are stored in one byte.
+	 */
+	static final int MAX_KEY_LENGTH = 255;
+
+	/**
+	 * Front-coded keys: shared prefix length, rest length and rest chars of
+	 * every key.
+	 */
+	private final byte[] data;
+	/**
+	 * Offsets of the blocks in the data array.
+	 */
+	private final int[] blockOffsets;
+	/**
+	 * Values, to which keys are mapped, in the order of the keys.
+	 */
+	private final Object[] values;
+	/**
+	 * Length of the longest key.
+	 */
+	private final int maxLength;
+
+	/**
+	 * Creates the trie from the specified tuples, whose keys are sorted
+	 * lexicographically without duplicates.
+	 * 
+	 * @param sortedTuples
+	 *            - tuples sorted by key.
+	 * @throws IllegalArgumentException
+	 *             if the keys are not sorted, are duplicated, contain chars
+	 *             beyond the alphabet or are too long, or a value is null.
+	 */
+	public FrontCodedTrie(Iterable<Trie.Tuple<T>> sortedTuples) {
+		super();
+		List<Object> valueList = new ArrayList<>();
+		List<Integer> offsetList = new ArrayList<>();
+		ByteArrayBuilder builder = new ByteArrayBuilder();
+		String previous = null;
+		int longest = 0;
+		for (Trie.Tuple<T> tuple : sortedTuples) {
+			String term = tuple.getTerm();
+			if (!RWayTrie.isTermValid(term) || tuple.getValue() == null || term.length() > MAX_KEY_LENGTH) {
+				throw new IllegalArgumentException("Invalid key or value: " + term);
+			}
+			if (previous != null && previous.compareTo(term) >= 0) {
+				throw new IllegalArgumentException("Keys are not sorted: " + previous + ", " + term);
+			}
+			int shared = 0;
+			if (valueList.size() % BLOCK_SIZE == 0) {
+				offsetList.add(builder.size());
+			} else {
+				int limit = Math.min(previous.length(), term.length());
+				while (shared < limit && previous.charAt(shared) == term.charAt(shared)) {
+					shared++;
+				}
+			}
+			builder.append(shared);
+			builder.append(term.length() - shared);
+			for (int i = shared; i < term.length(); i++) {
+				builder.append(term.charAt(i));
+			}
+			valueList.add(tuple.getValue());
+			longest = Math.max(longest, term.length());
+			previous = term;
+		}
+		data = builder.toArray();
+		blockOffsets = new int[offsetList.size()];
+		for (int i = 0; i < blockOffsets.length; i++) {
+			blockOffsets[i] = offsetList.get(i);
+		}
+		values = valueList.toArray();
+		maxLength = longest;
+	}
+
+	/**
+	 * Creates the front-coded copy of the specified trie.
+	 * 
+	 * @param trie
+	 *            - trie to be copied.
+	 * @return front-coded trie with the same mappings.
+	 */
+	public static <T> FrontCodedTrie<T> of(RWayTrie<T> trie) {
+		List<Trie.Tuple<T>> tuples = new ArrayList<>(trie.size());
+		trie.stream().forEachOrdered(word -> tuples.add(new Trie.Tuple<T>(word, trie.get(word))));
+		return new FrontCodedTrie<>(tuples);
+	}
+
+	/**
+	 * Growable byte array, which the keys are encoded into.
+	 */
+	private static class ByteArrayBuilder {
+		private byte[] bytes = new byte[1024];
+		private int size;
+
+		void append(int value) {
+			if (size == bytes.length) {
+				byte[] grown = new byte[bytes.length * 2];
+				System.arraycopy(bytes, 0, grown, 0, size);
+				bytes = grown;
+			}
+			bytes[size++] = (byte) value;
+		}
+
+		int size() {
+			return size;
+		}
+
+		byte[] toArray() {
+			byte[] result = new byte[size];
+			System.arraycopy(bytes, 0, result, 0, size);
+			return result;
+		}
+	}
+
+	/**
+	 * Sequential decoder of the keys starting from a specific block.
+	 */
+	private class Cursor {
+		/**
+		 * Chars of the current key.
+		 */
+		final byte[] key = new byte[maxLength];
+		/**
+		 * Length of the current key.
+		 */
+		int length;
+		/**
+		 * Index of the current key in the order of the keys.
+		 */
+		int index;
+		/**
+		 * Offset of the next key in the data array.
+		 */
+		private int offset;
+
+		Cursor(int block) {
+			index = block * BLOCK_SIZE - 1;
+			offset = (block < blockOffsets.length) ? blockOffsets[block] : data.length;
+		}
+
+		/**
+		 * Decodes the next key.
+		 * 
+		 * @return false if there are no more keys.
+		 */
+		boolean next() {
+			if (offset >= data.length) {
+				return false;
+			}
+			int shared = data[offset] & 0xFF;
+			int rest = data[offset + 1] & 0xFF;
+			System.arraycopy(data, offset + 2, key, shared, rest);
+			length = shared + rest;
+			offset += 2 + rest;
+			index++;
+			return true;
+		}
+
+		/**
+		 * Compares the current key with the specified one lexicographically.
+		 */
+		int compareTo(String other) {
+			return compare(key, 0, length, other);
+		}
+
+		/**
+		 * Checks if the current key starts with the specified prefix.
+		 */
+		boolean startsWith(String pref) {
+			if (length < pref.length()) {
+				return false;
+			}
+			for (int i = 0; i < pref.length(); i++) {
+				if (key[i] != pref.charAt(i)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		String word() {
+			return new String(key, 0, length, StandardCharsets.US_ASCII);
+		}
+	}
+
+	/**
+	 * Compares the chars of the byte array range with the specified string
+	 * lexicographically.
+	 */
+	private static int compare(byte[] bytes, int from, int length, String other) {
+		int limit = Math.min(length, other.length());
+		for (int i = 0; i < limit; i++) {
+			int diff = bytes[from + i] - other.charAt(i);
+			if (diff != 0) {
+				return diff;
+			}
+		}
+		return length - other.length();
+	}
+
+	/**
+	 * Returns index of the last block, whose header precedes the specified
+	 * key, or zero if there is no such block. Keys not preceding the specified
+	 * one start in this block or later.
+	 * 
+	 * @param key
+	 *            - key or prefix to search for.
+	 * @return index of the block to start the scan from.
+	 */
+	private int firstBlock(String key) {
+		int low = 0;
+		int high = blockOffsets.length - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			int offset = blockOffsets[mid];
+			if (compare(data, offset + 2, data[offset + 1] & 0xFF, key) < 0) {
+				low = mid;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Returns index of the specified key in the order of the keys.
+	 * 
+	 * @param key
+	 *            - key to search for.
+	 * @return index of the key, or -1 if the key is absent.
+	 */
+	private int find(String key) {
+		if (!RWayTrie.isTermValid(key) || key.length() > maxLength) {
+			return -1;
+		}
+		Cursor cursor = new Cursor(firstBlock(key));
+		while (cursor.next()) {
+			int diff = cursor.compareTo(key);
+			if (diff >= 0) {
+				return (diff == 0) ? cursor.index : -1;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Operation is not supported, as the trie is read-only.
+	 * 
+	 * @throws UnsupportedOperationException
+	 *             always.
+	 */
+	public void add(Trie.Tuple<T> tuple) {
+		throw new UnsupportedOperationException("Front-coded trie is read-only");
+	}
+
+	/**
+	 * Returns true if this trie contains a mapping for the specified word,
+	 * which serves as a key.
+	 * 
+	 * @param word
+	 *            - key whose presence in this trie is to be tested
+	 * @return Boolean value indicating if the mapping exists for the specified
+	 *         key.
+	 */
+	public boolean contains(String word) {
+		return find(word) >= 0;
+	}
+
+	/**
+	 * Operation is not supported, as the trie is read-only.
+	 * 
+	 * @throws UnsupportedOperationException
+	 *             always.
+	 */
+	public boolean delete(String word) {
+		throw new UnsupportedOperationException("Front-coded trie is read-only");
+	}
+
+	/**
+	 * Returns the value to which the specified string key is mapped, or null if
+	 * this trie contains no mapping for the key.
+	 * 
+	 * @param key
+	 *            - the key whose associated value is to be returned
+	 * @return the value to which the specified key is mapped, or null if this
+	 *         trie contains no mapping for the key
+	 */
+	@SuppressWarnings("unchecked")
+	public T get(String key) {
+		int index = find(key);
+		return (index < 0) ? null : (T) values[index];
+	}
+
+	/**
+	 * Returns an Iterable view of the string keys contained in this trie.
+	 * 
+	 * @return an Iterable view of the string keys contained in this trie.
+	 */
+	public Iterable<String> words() {
+		return wordsWithPrefix(RWayTrie.EMPTY_STRING);
+	}
+
+	/**
+	 * Returns an Iterable view of the string keys with a specific prefix
+	 * contained in this trie. Keys are sorted by length, keys of the same
+	 * length are sorted lexicographically, so the range of the keys is sorted
+	 * after the scan.
+	 * 
+	 * @param pref
+	 *            - prefix of the string values should contained in returned
+	 *            Iterable object.
+	 * @return an Iterable view of the string keys with a specific prefix
+	 *         contained in this trie.
+	 */
+	public Iterable<String> wordsWithPrefix(String pref) {
+		List<String> result = new ArrayList<>();
+		if (RWayTrie.isTermValid(pref)) {
+			for (Iterator<String> it = range(pref); it.hasNext();) {
+				result.add(it.next());
+			}
+			result.sort(RWayTrie::compareShortest);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns number of the string keys with a specific prefix contained in
+	 * this trie. Keys of the range are counted without being decoded into
+	 * strings.
+	 * 
+	 * @param pref
+	 *            - prefix of the string keys to be counted.
+	 * @return number of the string keys with a specific prefix.
+	 */
+	public int countWithPrefix(String pref) {
+		return query(new TrieQuery(pref, TrieQuery.Order.COUNT)).getCount();
+	}
+
+	/**
+	 * Returns the page of the lexicographically sorted string keys with a
+	 * specific prefix contained in this trie. Keys are stored in this order,
+	 * so the page is read from the range without sorting.
+	 * 
+	 * @param pref
+	 *            - prefix of the string values should contained in returned
+	 *            Iterable object.
+	 * @param offset
+	 *            - number of the keys preceding the page.
+	 * @param limit
+	 *            - maximal number of the keys in the page.
+	 * @return an Iterable view of the page of the string keys with a specific
+	 *         prefix.
+	 */
+	public Iterable<String> wordsWithPrefix(String pref, int offset, int limit) {
+		if (offset < 0 || limit <= 0) {
+			return new ArrayList<>();
+		}
+		TrieQuery query = new TrieQuery(pref, TrieQuery.Order.LEXICOGRAPHIC);
+		query.setOffset(offset);
+		query.setLimit(limit);
+		return query(query).getWords();
+	}
+
+	/**
+	 * Returns the result of the specified query for the string keys with a
+	 * specific prefix. Count and lexicographic queries scan the range of the
+	 * keys directly, counting and skipping the keys without decoding them
+	 * into strings; other queries select from the wordsWithPrefix() view.
+	 * 
+	 * @param query
+	 *            - query to be performed.
+	 * @return result of the query.
+	 */
+	public QueryResult query(TrieQuery query) {
+		TrieQuery.Order order = query.getOrder();
+		if (order != TrieQuery.Order.COUNT && order != TrieQuery.Order.LEXICOGRAPHIC) {
+			return Trie.super.query(query);
+		}
+		TrieQuery.Collector collector = new TrieQuery.Collector(query);
+		String pref = query.getPrefix();
+		if (!RWayTrie.isTermValid(pref)) {
+			return collector.result();
+		}
+		int minLength = query.getMinLength();
+		Cursor cursor = new Cursor(firstBlock(pref));
+		while (!collector.isComplete() && collector.visit() && cursor.next()) {
+			if (!cursor.startsWith(pref)) {
+				if (cursor.compareTo(pref) > 0) {
+					break;
+				}
+			} else if (cursor.length < minLength) {
+				continue;
+			} else if (order == TrieQuery.Order.COUNT) {
+				collector.addCount(1);
+			} else if (collector.toSkip() > 0) {
+				collector.skip(1);
+			} else {
+				collector.offer(cursor.word());
+			}
+		}
+		return collector.result();
+	}
+
+	/**
+	 * Returns an iterator over the lexicographically sorted keys with the
+	 * specified prefix.
+	 * 
+	 * @param pref
+	 *            - prefix of the keys.
+	 * @return iterator over the range of the keys.
+	 */
+	private Iterator<String> range(String pref) {
+		Cursor cursor = new Cursor(firstBlock(pref));
+		return new Iterator<String>() {
+			private String next = advance();
+
+			private String advance() {
+				while (cursor.next()) {
+					if (cursor.startsWith(pref)) {
+						return cursor.word();
+					}
+					if (cursor.compareTo(pref) > 0) {
+						return null;
+					}
+				}
+				return null;
+			}
+
+			public boolean hasNext() {
+				return next != null;
+			}
+
+			public String next() {
+				if (next == null) {
+					throw new NoSuchElementException();
+				}
+				String current = next;
+				next = advance();
+				return current;
+			}
+		};
+	}
+
+	/**
+	 * Returns number of the bytes of the arrays storing the keys, i.e. the
+	 * front-coded keys and the block offsets, excluding the values.
+	 * 
+	 * @return number of the bytes storing the keys.
+	 */
+	public long keyBytes() {
+		return data.length + 4L * blockOffsets.length;
+	}
+
+	/**
+	 * Returns the number of key-value mappings in this trie.
+	 * 
+	 * @return the number of key-value mappings in this trie.
+	 */
+	public int size() {
+		return values.length;
+	}
+}
@@ -0,0 +1,240 @@
+package com.epam.lab.auto_completion.trie;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Read-only implementation of Trie interface, whose nodes are laid out in
+ * breadth-first order in a single int array. Each node occupies two adjacent
+ * array elements: bit mask of the present descendants and index of the first
+ * descendant. As the descendants of every node are placed one after another,
+ * index of the descendant for a specific char is computed by counting the
+ * mask bits below the char bit, so the prefix descent reads one array element
+ * pair per char instead of dereferencing a node and its descendants array.
+ * Nodes of the same level are adjacent, hence the first levels, visited by
+ * every descent, share a few cache lines. Instances are created by
+ * RWayTrie.freeze(). Alphabet of the class is the same as RWayTrie alphabet.
+ * 
+ * @param <T>
+ *            - the type of mapped values
+ */
+public class FrozenTrie<T> implements Trie<T> {
+
+	/**
+	 * Number of the layout array elements occupied by one node.
+	 */
+	static final int NODE_LENGTH = 2;
+
+	/**
+	 * Node layout: mask of the present descendants followed by index of the
+	 * first descendant for every node. Root node has zero index.
+	 */
+	private final int[] layout;
+	/**
+	 * Values, to which keys are mapped, indexed by node index.
+	 */
+	private final Object[] values;
+	/**
+	 * Number of the key-value mappings in this trie.
+	 */
+	private final int size;
+
+	FrozenTrie(int[] layout, Object[] values, int size) {
+		super();
+		this.layout = layout;
+		this.values = values;
+		this.size = size;
+	}
+
+	/**
+	 * Operation is not supported, as the trie is read-only.
+	 * 
+	 * @throws UnsupportedOperationException
+	 *             always.
+	 */
+	public void add(Trie.Tuple<T> tuple) {
+		throw new UnsupportedOperationException("Frozen trie is read-only");
+	}
+
+	/**
+	 * Returns true if this trie contains a mapping for the specified word,
+	 * which serves as a key.
+	 * 
+	 * @param word
+	 *            - key whose presence in this trie is to be tested
+	 * @return Boolean value indicating if the mapping exists for the specified
+	 *         key.
+	 */
+	public boolean contains(String word) {
+		if (RWayTrie.isTermValid(word)) {
+			int node = find(word);
+			return node >= 0 && values[node] != null;
+		}
+		return false;
+	}
+
+	/**
+	 * Operation is not supported, as the trie is read-only.
+	 * 
+	 * @throws UnsupportedOperationException
+	 *             always.
+	 */
+	public boolean delete(String word) {
+		throw new UnsupportedOperationException("Frozen trie is read-only");
+	}
+
+	/**
+	 * Returns the value to which the specified string key is mapped, or null if
+	 * this trie contains no mapping for the key.
+	 * 
+	 * @param key
+	 *            - the key whose associated value is to be returned
+	 * @return the value to which the specified key is mapped, or null if this
+	 *         trie contains no mapping for the key
+	 */
+	@SuppressWarnings("unchecked")
+	public T get(String key) {
+		if (RWayTrie.isTermValid(key)) {
+			int node = find(key);
+			return (node < 0) ? null : (T) values[node];
+		}
+		return null;
+	}
+
+	/**
+	 * Returns index of the node associated with passing string key.
+	 * 
+	 * @param key
+	 *            - string key to search for.
+	 * @return index of the node, to which passing key corresponds, or -1 if
+	 *         the key association is absent.
+	 */
+	private int find(String key) {
+		int node = 0;
+		for (int k = 0; k < key.length() && node >= 0; k++) {
+			node = child(node, key.charAt(k) - RWayTrie.ALPHABET_FIRST_LETTER_ASCII);
+		}
+		return node;
+	}
+
+	/**
+	 * Returns index of the descendant of the specified node for the specified
+	 * alphabet char index.
+	 * 
+	 * @param node
+	 *            - index of the parent node.
+	 * @param charIndex
+	 *            - index of the char in the alphabet.
+	 * @return index of the descendant node, or -1 if it is absent.
+	 */
+	private int child(int node, int charIndex) {
+		int mask = layout[node * NODE_LENGTH];
+		int bit = 1 << charIndex;
+		if ((mask & bit) == 0) {
+			return -1;
+		}
+		return layout[node * NODE_LENGTH + 1] + Integer.bitCount(mask & (bit - 1));
+	}
+
+	/**
+	 * Returns an Iterable view of the string keys contained in this trie.
+	 * 
+	 * @return an Iterable view of the string keys contained in this trie.
+	 */
+	public Iterable<String> words() {
+		return wordsWithPrefix(RWayTrie.EMPTY_STRING);
+	}
+
+	/**
+	 * Returns an Iterable view of the string keys with a specific prefix
+	 * contained in this trie. Keys are sorted by length, keys of the same
+	 * length are sorted lexicographically.
+	 * 
+	 * @param pref
+	 *            - prefix of the string values should contained in returned
+	 *            Iterable object.
+	 * @return an Iterable view of the string keys with a specific prefix
+	 *         contained in this trie.
+	 */
+	public Iterable<String> wordsWithPrefix(String pref) {
+		List<String> result = new ArrayList<>();
+		if (RWayTrie.isTermValid(pref)) {
+			int start = find(pref);
+			if (start < 0) {
+				return result;
+			}
+			Queue<Integer> nodeQ = new ArrayDeque<>();
+			Queue<String> wordQ = new ArrayDeque<>();
+			nodeQ.offer(start);
+			wordQ.offer(pref);
+			while (!nodeQ.isEmpty()) {
+				int curNode = nodeQ.poll();
+				String curWord = wordQ.poll();
+				if (values[curNode] != null) {
+					result.add(curWord);
+				}
+				int mask = layout[curNode * NODE_LENGTH];
+				int child = layout[curNode * NODE_LENGTH + 1];
+				for (; mask != 0; mask &= mask - 1, child++) {
+					char c = (char) (Integer.numberOfTrailingZeros(mask) + RWayTrie.ALPHABET_FIRST_LETTER_ASCII);
+					nodeQ.offer(child);
+					wordQ.offer(curWord + c);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the result of the specified query for the string keys with a
+	 * specific prefix. Length ordered query performs breadth-first traversal,
+	 * which stops as soon as the limits are reached; other queries select
+	 * from the wordsWithPrefix() view.
+	 * 
+	 * @param query
+	 *            - query to be performed.
+	 * @return result of the query.
+	 */
+	public QueryResult query(TrieQuery query) {
+		if (query.getOrder() != TrieQuery.Order.LENGTH) {
+			return Trie.super.query(query);
+		}
+		TrieQuery.Collector collector = new TrieQuery.Collector(query);
+		String pref = query.getPrefix();
+		int start = RWayTrie.isTermValid(pref) ? find(pref) : -1;
+		if (start < 0) {
+			return collector.result();
+		}
+		Queue<Integer> nodeQ = new ArrayDeque<>();
+		Queue<String> wordQ = new ArrayDeque<>();
+		nodeQ.offer(start);
+		wordQ.offer(pref);
+		while (!nodeQ.isEmpty()) {
+			int curNode = nodeQ.poll();
+			String curWord = wordQ.poll();
+			if (!collector.wants(curWord.length()) || !collector.visit()
+					|| (values[curNode] != null && !collector.offer(curWord))) {
+				break;
+			}
+			int mask = layout[curNode * NODE_LENGTH];
+			int child = layout[curNode * NODE_LENGTH + 1];
+			for (; mask != 0; mask &= mask - 1, child++) {
+				char c = (char) (Integer.numberOfTrailingZeros(mask) + RWayTrie.ALPHABET_FIRST_LETTER_ASCII);
+				nodeQ.offer(child);
+				wordQ.offer(curWord + c);
+			}
+		}
+		return collector.result();
+	}
+
+	/**
+	 * Returns the number of key-value mappings in this trie.
+	 * 
+	 * @return the number of key-value mappings in this trie.
+	 */
+	public int size() {
+		return size;
+	}
+}
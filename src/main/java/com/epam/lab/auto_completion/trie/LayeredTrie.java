@@ -0,0 +1,407 @@
+package com.epam.lab.auto_completion.trie;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Implementation of Trie interface, which layers a small mutable delta over a
+ * read-only base trie shared by many instances. Added keys are put into the
+ * delta RWayTrie; deleted keys of the base are recorded as tombstones, which
+ * hide them from all the lookups, so the base is never modified. Keys of the
+ * delta and of the base are merged by wordsWithPrefix(), both sorted by length
+ * and lexicographically. Queries are not answered from the merged view: the
+ * delta and the base answer the query each, bounded by its limits, and their
+ * results are merged lazily until the limits are reached. Base trie should not be modified while it is layered,
+ * e.g. it should be a FrozenTrie or a FrontCodedTrie. Alphabet of the class is
+ * the same as RWayTrie alphabet.
+ * 
+ * @param <T>
+ *            - the type of mapped values
+ */
+public class LayeredTrie<T> implements Trie<T> {
+
+	/**
+	 * Estimated heap size of the tombstone set entry excluding the key chars:
+	 * hash map node, string and its array headers.
+	 */
+	private static final int TOMBSTONE_BYTES = 72;
+
+	/**
+	 * Shared read-only trie.
+	 */
+	private final Trie<T> base;
+	/**
+	 * Keys added to this trie.
+	 */
+	private final RWayTrie<T> delta = new RWayTrie<>();
+	/**
+	 * Keys of the base deleted from this trie.
+	 */
+	private final Set<String> tombstones = new HashSet<>();
+	/**
+	 * Number of the key-value mappings in this trie.
+	 */
+	private int size;
+	/**
+	 * Number of the modifications of this trie.
+	 */
+	private int modCount;
+
+	public LayeredTrie(Trie<T> base) {
+		super();
+		this.base = base;
+		this.size = base.size();
+	}
+
+	public Trie<T> getBase() {
+		return base;
+	}
+
+	/**
+	 * Returns the trie of the keys added to this trie. Delta should not be
+	 * modified directly.
+	 * 
+	 * @return trie of the added keys.
+	 */
+	public RWayTrie<T> getDelta() {
+		return delta;
+	}
+
+	/**
+	 * Returns an unmodifiable view of the keys of the base deleted from this
+	 * trie.
+	 * 
+	 * @return deleted keys of the base.
+	 */
+	public Set<String> getTombstones() {
+		return Collections.unmodifiableSet(tombstones);
+	}
+
+	/**
+	 * Returns number of the modifications of this trie, so the callers can
+	 * tell if it was modified since they have seen it.
+	 * 
+	 * @return number of the modifications.
+	 */
+	public int getModCount() {
+		return modCount;
+	}
+
+	/**
+	 * Associates the specified value with the specified key in the delta of
+	 * this trie. If the key of the base was deleted, its tombstone is removed.
+	 * 
+	 * @param tuple
+	 *            - object encapsulating key with which the specified value is
+	 *            to be associated and value to be associated with the specified
+	 *            key.
+	 */
+	public void add(Trie.Tuple<T> tuple) {
+		String term = tuple.getTerm();
+		boolean present = contains(term);
+		int initSize = delta.size();
+		delta.add(tuple);
+		if (delta.size() == initSize && !delta.contains(term)) {
+			// Tuple rejected by the delta
+			return;
+		}
+		tombstones.remove(term);
+		if (!present) {
+			size++;
+		}
+		modCount++;
+	}
+
+	/**
+	 * Returns true if this trie contains a mapping for the specified word,
+	 * which serves as a key.
+	 * 
+	 * @param word
+	 *            - key whose presence in this trie is to be tested
+	 * @return Boolean value indicating if the mapping exists for the specified
+	 *         key.
+	 */
+	public boolean contains(String word) {
+		if (word == null || tombstones.contains(word)) {
+			return false;
+		}
+		return delta.contains(word) || base.contains(word);
+	}
+
+	/**
+	 * Removes the mapping for a key from this trie if it is present. Key is
+	 * removed from the delta; key of the base is hidden by a tombstone.
+	 * 
+	 * @param word
+	 *            - key whose mapping is to be removed from the trie
+	 * @return true if key to delete was found in the trie.
+	 */
+	public boolean delete(String word) {
+		if (!contains(word)) {
+			return false;
+		}
+		delta.delete(word);
+		if (base.contains(word)) {
+			tombstones.add(word);
+		}
+		size--;
+		modCount++;
+		return true;
+	}
+
+	/**
+	 * Returns an Iterable view of the string keys contained in this trie.
+	 * 
+	 * @return an Iterable view of the string keys contained in this trie.
+	 */
+	public Iterable<String> words() {
+		return wordsWithPrefix(RWayTrie.EMPTY_STRING);
+	}
+
+	/**
+	 * Returns an Iterable view of the string keys with a specific prefix
+	 * contained in this trie. Keys are sorted by length, keys of the same
+	 * length are sorted lexicographically. Sorted keys of the delta and of the
+	 * base are merged, skipping the deleted keys of the base and the keys
+	 * present in both.
+	 * 
+	 * @param pref
+	 *            - prefix of the string values should contained in returned
+	 *            Iterable object.
+	 * @return an Iterable view of the string keys with a specific prefix
+	 *         contained in this trie.
+	 */
+	public Iterable<String> wordsWithPrefix(String pref) {
+		List<String> result = new ArrayList<>();
+		Iterator<String> deltaIt = delta.wordsWithPrefix(pref).iterator();
+		Iterator<String> baseIt = base.wordsWithPrefix(pref).iterator();
+		String deltaWord = next(deltaIt);
+		String baseWord = nextAlive(baseIt);
+		while (deltaWord != null || baseWord != null) {
+			int diff = (deltaWord == null) ? 1
+					: (baseWord == null) ? -1 : RWayTrie.compareShortest(deltaWord, baseWord);
+			if (diff <= 0) {
+				result.add(deltaWord);
+				deltaWord = next(deltaIt);
+			} else {
+				result.add(baseWord);
+			}
+			if (diff >= 0) {
+				baseWord = nextAlive(baseIt);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns number of the string keys with a specific prefix contained in
+	 * this trie (see query()).
+	 * 
+	 * @param pref
+	 *            - prefix of the string keys to be counted.
+	 * @return number of the string keys with a specific prefix.
+	 */
+	public int countWithPrefix(String pref) {
+		return query(new TrieQuery(pref, TrieQuery.Order.COUNT)).getCount();
+	}
+
+	/**
+	 * Returns the page of the lexicographically sorted string keys with a
+	 * specific prefix contained in this trie (see query()).
+	 * 
+	 * @param pref
+	 *            - prefix of the string values should contained in returned
+	 *            Iterable object.
+	 * @param offset
+	 *            - number of the keys preceding the page.
+	 * @param limit
+	 *            - maximal number of the keys in the page.
+	 * @return an Iterable view of the page of the string keys with a specific
+	 *         prefix.
+	 */
+	public Iterable<String> wordsWithPrefix(String pref, int offset, int limit) {
+		if (offset < 0 || limit <= 0) {
+			return new ArrayList<>();
+		}
+		TrieQuery query = new TrieQuery(pref, TrieQuery.Order.LEXICOGRAPHIC);
+		query.setOffset(offset);
+		query.setLimit(limit);
+		return query(query).getWords();
+	}
+
+	/**
+	 * Returns an Iterable view of the shortest string keys with a specific
+	 * prefix contained in this trie (see query()).
+	 * 
+	 * @param pref
+	 *            - prefix of the string values should contained in returned
+	 *            Iterable object.
+	 * @param limit
+	 *            - maximal number of the keys.
+	 * @return an Iterable view of the shortest string keys with a specific
+	 *         prefix.
+	 */
+	public Iterable<String> shortestWithPrefix(String pref, int limit) {
+		if (limit <= 0) {
+			return new ArrayList<>();
+		}
+		TrieQuery query = new TrieQuery(pref, TrieQuery.Order.LENGTH);
+		query.setLimit(limit);
+		return query(query).getWords();
+	}
+
+	/**
+	 * Returns the result of the specified query for the string keys with a
+	 * specific prefix. Count query adds the counts of the delta and of the
+	 * base, subtracting the deleted keys of the base and the keys present in
+	 * both. Length ordered and lexicographic queries are passed to the delta
+	 * and to the base with the limits raised by the number of the keys of the
+	 * base, which can be hidden by the tombstones or by the delta, and their
+	 * results are merged until the query limits are reached. Frequency ordered
+	 * query is selected from the merged wordsWithPrefix() view, as the
+	 * frequencies are not learned. Result is truncated if the result of the
+	 * delta or of the base is truncated.
+	 * 
+	 * @param query
+	 *            - query to be performed.
+	 * @return result of the query.
+	 */
+	public QueryResult query(TrieQuery query) {
+		if (!RWayTrie.isTermValid(query.getPrefix())) {
+			return new TrieQuery.Collector(query).result();
+		}
+		switch (query.getOrder()) {
+		case COUNT:
+			return count(query);
+		case LENGTH:
+			return merge(query, RWayTrie::compareShortest);
+		case LEXICOGRAPHIC:
+			return merge(query, Comparator.naturalOrder());
+		default:
+			return Trie.super.query(query);
+		}
+	}
+
+	/**
+	 * Performs the count query.
+	 */
+	private QueryResult count(TrieQuery query) {
+		String pref = query.getPrefix();
+		int minLength = query.getMinLength();
+		QueryResult deltaResult = delta.query(subQuery(query, Integer.MAX_VALUE, Integer.MAX_VALUE));
+		QueryResult baseResult = base.query(subQuery(query, Integer.MAX_VALUE, Integer.MAX_VALUE));
+		int count = deltaResult.getCount() + baseResult.getCount() - hiddenByTombstones(query);
+		for (String word : delta.wordsWithPrefix(pref)) {
+			if (word.length() >= minLength && base.contains(word)) {
+				count--;
+			}
+		}
+		return new QueryResult(new ArrayList<>(), count, deltaResult.isTruncated() || baseResult.isTruncated());
+	}
+
+	/**
+	 * Performs the length ordered or the lexicographic query, merging the
+	 * results of the delta and of the base sorted in the specified order.
+	 */
+	private QueryResult merge(TrieQuery query, Comparator<String> order) {
+		long needed = (long) query.getOffset() + query.getLimit();
+		int hiddenByTombstones = hiddenByTombstones(query);
+		long hidden = (long) hiddenByTombstones + delta.countWithPrefix(query.getPrefix());
+		QueryResult deltaResult = delta.query(subQuery(query, needed, query.getLengthSets()));
+		QueryResult baseResult = base
+				.query(subQuery(query, needed + hidden, (long) query.getLengthSets() + hiddenByTombstones));
+		TrieQuery.Collector collector = new TrieQuery.Collector(query);
+		Iterator<String> deltaIt = deltaResult.iterator();
+		Iterator<String> baseIt = baseResult.iterator();
+		String deltaWord = next(deltaIt);
+		String baseWord = nextAlive(baseIt);
+		while (deltaWord != null || baseWord != null) {
+			int diff = (deltaWord == null) ? 1 : (baseWord == null) ? -1 : order.compare(deltaWord, baseWord);
+			if (!collector.offer((diff <= 0) ? deltaWord : baseWord)) {
+				break;
+			}
+			if (diff <= 0) {
+				deltaWord = next(deltaIt);
+			}
+			if (diff >= 0) {
+				baseWord = nextAlive(baseIt);
+			}
+		}
+		QueryResult result = collector.result();
+		return new QueryResult(result.getWords(), result.getCount(),
+				deltaResult.isTruncated() || baseResult.isTruncated());
+	}
+
+	/**
+	 * Returns the query for the delta or for the base with the prefix, the
+	 * order, the minimal length and the budget of the specified query and
+	 * with the specified limits.
+	 */
+	private static TrieQuery subQuery(TrieQuery query, long limit, long lengthSets) {
+		TrieQuery subQuery = new TrieQuery(query.getPrefix(), query.getOrder());
+		subQuery.setMinLength(query.getMinLength());
+		subQuery.setLimit((int) Math.min(limit, Integer.MAX_VALUE));
+		subQuery.setLengthSets((int) Math.min(lengthSets, Integer.MAX_VALUE));
+		subQuery.setBudget(query.getBudget());
+		return subQuery;
+	}
+
+	/**
+	 * Returns number of the deleted keys of the base matching the query
+	 * prefix and minimal length.
+	 */
+	private int hiddenByTombstones(TrieQuery query) {
+		int hidden = 0;
+		for (String word : tombstones) {
+			if (word.startsWith(query.getPrefix()) && word.length() >= query.getMinLength()) {
+				hidden++;
+			}
+		}
+		return hidden;
+	}
+
+	private static String next(Iterator<String> it) {
+		return it.hasNext() ? it.next() : null;
+	}
+
+	/**
+	 * Returns the next key of the base, which is not deleted, or null.
+	 */
+	private String nextAlive(Iterator<String> it) {
+		while (it.hasNext()) {
+			String word = it.next();
+			if (!tombstones.contains(word)) {
+				return word;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the estimated heap size of the delta and the tombstones of this
+	 * trie, i.e. the memory this trie takes in addition to the shared base.
+	 * 
+	 * @return estimated number of the heap bytes owned by this trie.
+	 */
+	public long estimatedBytes() {
+		long bytes = delta.estimatedBytes();
+		for (String word : tombstones) {
+			bytes += TOMBSTONE_BYTES + word.length();
+		}
+		return bytes;
+	}
+
+	/**
+	 * Returns the number of key-value mappings in this trie.
+	 * 
+	 * @return the number of key-value mappings in this trie.
+	 */
+	public int size() {
+		return size;
+	}
+}
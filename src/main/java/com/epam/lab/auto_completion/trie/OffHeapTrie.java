@@ -0,0 +1,437 @@
+package com.epam.lab.auto_completion.trie;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.function.Consumer;
+
+/**
+ * String tree ('trie') based implementation of Trie interface, which keeps the
+ * nodes and the integer values outside of the Java heap. Nodes are stored in
+ * direct buffers ('chunks') of the fixed size allocated on demand; each node
+ * is a record of int slots: indexes of the descendant nodes, value, value
+ * presence flag and number of the keys in the subtree. Heap contains only the
+ * chunk list, so the number of the keys does not affect GC marking time and
+ * heap sizing. Nodes detached by delete() calls are chained in a free list and
+ * reused by add() calls. Instance should be closed when it is no longer
+ * needed; close() frees the off-heap memory of the chunks at once instead of
+ * leaving it to the collection of the chunk buffers, and the closed trie
+ * throws IllegalStateException on any call. Instance is not thread-safe; in
+ * particular, close() must not run concurrently with other calls, as the
+ * freed memory must not be accessed. Alphabet of the class is the same as
+ * RWayTrie alphabet.
+ */
+public class OffHeapTrie implements Trie<Integer>, AutoCloseable {
+
+	/**
+	 * Slot of the node record containing the value.
+	 */
+	private static final int VALUE_SLOT = RWayTrie.ALPHABET_LENGTH;
+	/**
+	 * Slot of the node record containing the value presence flag.
+	 */
+	private static final int FLAG_SLOT = VALUE_SLOT + 1;
+	/**
+	 * Slot of the node record containing the number of the keys in the node
+	 * subtree.
+	 */
+	private static final int COUNT_SLOT = FLAG_SLOT + 1;
+	/**
+	 * Number of the int slots in the node record.
+	 */
+	private static final int NODE_SLOTS = COUNT_SLOT + 1;
+	/**
+	 * Binary logarithm of the number of the nodes in a chunk.
+	 */
+	private static final int CHUNK_SHIFT = 14;
+	/**
+	 * Number of the nodes in a chunk.
+	 */
+	private static final int CHUNK_NODES = 1 << CHUNK_SHIFT;
+	/**
+	 * Index of the root node. As the root is never a descendant, this index in
+	 * a descendant slot stands for the absent descendant.
+	 */
+	private static final int ROOT = 0;
+	/**
+	 * End of the free list mark.
+	 */
+	private static final int NO_NODE = -1;
+	/**
+	 * Frees the off-heap memory of a direct buffer without waiting for the
+	 * buffer collection, or null if the virtual machine gives no access to
+	 * it, so the memory is freed when the buffer is collected.
+	 */
+	private static final Consumer<ByteBuffer> DEALLOCATOR = findDeallocator();
+
+	/**
+	 * Chunks of the node records, or null if this trie is closed.
+	 */
+	private List<IntBuffer> chunks = new ArrayList<>();
+	/**
+	 * Direct buffers of the chunks, which own the off-heap memory, or null
+	 * if this trie is closed.
+	 */
+	private List<ByteBuffer> chunkBuffers = new ArrayList<>();
+	/**
+	 * Number of the node records ever allocated in the chunks.
+	 */
+	private int allocated;
+	/**
+	 * Index of the first node of the free list.
+	 */
+	private int freeHead = NO_NODE;
+	/**
+	 * Number of the key-value mappings in this trie.
+	 */
+	private int size;
+
+	public OffHeapTrie() {
+		super();
+		newNode();
+	}
+
+	/**
+	 * Associates the specified value with the specified key in this trie. If
+	 * the trie previously contained a mapping for the key, the old value is
+	 * replaced. Tuples with the invalid key or null value are ignored.
+	 * 
+	 * @param tuple
+	 *            - object encapsulating key with which the specified value is
+	 *            to be associated and value to be associated with the specified
+	 *            key.
+	 */
+	public void add(Trie.Tuple<Integer> tuple) {
+		checkOpen();
+		String term = tuple.getTerm();
+		if (!RWayTrie.isTermValid(term) || tuple.getValue() == null) {
+			return;
+		}
+		int found = find(term);
+		boolean isNew = found == NO_NODE || read(found, FLAG_SLOT) == 0;
+		int node = ROOT;
+		for (int k = 0;; k++) {
+			if (isNew) {
+				write(node, COUNT_SLOT, read(node, COUNT_SLOT) + 1);
+			}
+			if (k == term.length()) {
+				break;
+			}
+			int slot = term.charAt(k) - RWayTrie.ALPHABET_FIRST_LETTER_ASCII;
+			int child = read(node, slot);
+			if (child == ROOT) {
+				child = newNode();
+				write(node, slot, child);
+			}
+			node = child;
+		}
+		write(node, VALUE_SLOT, tuple.getValue());
+		write(node, FLAG_SLOT, 1);
+		if (isNew) {
+			size++;
+		}
+	}
+
+	/**
+	 * Returns true if this trie contains a mapping for the specified word,
+	 * which serves as a key.
+	 * 
+	 * @param word
+	 *            - key whose presence in this trie is to be tested
+	 * @return Boolean value indicating if the mapping exists for the specified
+	 *         key.
+	 */
+	public boolean contains(String word) {
+		checkOpen();
+		if (RWayTrie.isTermValid(word)) {
+			int node = find(word);
+			return node != NO_NODE && read(node, FLAG_SLOT) != 0;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the value to which the specified string key is mapped, or null if
+	 * this trie contains no mapping for the key.
+	 * 
+	 * @param key
+	 *            - the key whose associated value is to be returned
+	 * @return the value to which the specified key is mapped, or null if this
+	 *         trie contains no mapping for the key
+	 */
+	public Integer get(String key) {
+		checkOpen();
+		if (RWayTrie.isTermValid(key)) {
+			int node = find(key);
+			if (node != NO_NODE && read(node, FLAG_SLOT) != 0) {
+				return read(node, VALUE_SLOT);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Removes the mapping for a key from this trie if it is present. Nodes
+	 * left without keys in their subtrees are detached and put to the free
+	 * list.
+	 * 
+	 * @param word
+	 *            - key whose mapping is to be removed from the trie
+	 * @return true if key to delete was found in the trie.
+	 */
+	public boolean delete(String word) {
+		checkOpen();
+		if (!RWayTrie.isTermValid(word)) {
+			return false;
+		}
+		int[] path = new int[word.length() + 1];
+		int node = ROOT;
+		path[0] = node;
+		for (int k = 0; k < word.length(); k++) {
+			node = read(node, word.charAt(k) - RWayTrie.ALPHABET_FIRST_LETTER_ASCII);
+			if (node == ROOT) {
+				return false;
+			}
+			path[k + 1] = node;
+		}
+		if (read(node, FLAG_SLOT) == 0) {
+			return false;
+		}
+		write(node, FLAG_SLOT, 0);
+		write(node, VALUE_SLOT, 0);
+		for (int k = word.length(); k >= 0; k--) {
+			int count = read(path[k], COUNT_SLOT) - 1;
+			write(path[k], COUNT_SLOT, count);
+			if (count == 0 && k > 0) {
+				write(path[k - 1], word.charAt(k - 1) - RWayTrie.ALPHABET_FIRST_LETTER_ASCII, ROOT);
+				freeNode(path[k]);
+			}
+		}
+		size--;
+		return true;
+	}
+
+	/**
+	 * Returns an Iterable view of the string keys contained in this trie.
+	 * 
+	 * @return an Iterable view of the string keys contained in this trie.
+	 */
+	public Iterable<String> words() {
+		return wordsWithPrefix(RWayTrie.EMPTY_STRING);
+	}
+
+	/**
+	 * Returns an Iterable view of the string keys with a specific prefix
+	 * contained in this trie. Keys are sorted by length, keys of the same
+	 * length are sorted lexicographically.
+	 * 
+	 * @param pref
+	 *            - prefix of the string values should contained in returned
+	 *            Iterable object.
+	 * @return an Iterable view of the string keys with a specific prefix
+	 *         contained in this trie.
+	 */
+	public Iterable<String> wordsWithPrefix(String pref) {
+		checkOpen();
+		List<String> result = new ArrayList<>();
+		if (RWayTrie.isTermValid(pref)) {
+			int start = find(pref);
+			if (start == NO_NODE) {
+				return result;
+			}
+			Queue<Integer> nodeQ = new ArrayDeque<>();
+			Queue<String> wordQ = new ArrayDeque<>();
+			nodeQ.offer(start);
+			wordQ.offer(pref);
+			while (!nodeQ.isEmpty()) {
+				int curNode = nodeQ.poll();
+				String curWord = wordQ.poll();
+				if (read(curNode, FLAG_SLOT) != 0) {
+					result.add(curWord);
+				}
+				for (int i = 0; i < RWayTrie.ALPHABET_LENGTH; i++) {
+					int child = read(curNode, i);
+					if (child != ROOT) {
+						nodeQ.offer(child);
+						wordQ.offer(curWord + (char) (i + RWayTrie.ALPHABET_FIRST_LETTER_ASCII));
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns number of the string keys with a specific prefix contained in
+	 * this trie. Number is read from the prefix node.
+	 * 
+	 * @param pref
+	 *            - prefix of the string keys to be counted.
+	 * @return number of the string keys with a specific prefix.
+	 */
+	public int countWithPrefix(String pref) {
+		checkOpen();
+		if (RWayTrie.isTermValid(pref)) {
+			int node = find(pref);
+			return (node == NO_NODE) ? 0 : read(node, COUNT_SLOT);
+		}
+		return 0;
+	}
+
+	/**
+	 * Returns the number of key-value mappings in this trie.
+	 * 
+	 * @return the number of key-value mappings in this trie.
+	 */
+	public int size() {
+		checkOpen();
+		return size;
+	}
+
+	/**
+	 * Returns number of the off-heap bytes allocated by this trie.
+	 * 
+	 * @return number of the allocated off-heap bytes.
+	 */
+	public long allocatedBytes() {
+		checkOpen();
+		return (long) chunks.size() * CHUNK_NODES * NODE_SLOTS * Integer.BYTES;
+	}
+
+	/**
+	 * Releases the chunks of this trie and frees their off-heap memory
+	 * immediately. If the virtual machine gives no access to the buffer
+	 * deallocation, the memory is freed as soon as the chunk buffers are
+	 * collected. Closing of the closed trie has no effect.
+	 */
+	public void close() {
+		if (chunks == null) {
+			return;
+		}
+		List<ByteBuffer> released = chunkBuffers;
+		chunks = null;
+		chunkBuffers = null;
+		if (DEALLOCATOR != null) {
+			for (ByteBuffer chunk : released) {
+				DEALLOCATOR.accept(chunk);
+			}
+		}
+	}
+
+	/**
+	 * Looks up the way to free the memory of a direct buffer explicitly:
+	 * sun.misc.Unsafe.invokeCleaner() on Java 9 and later, the cleaner of
+	 * the buffer on Java 8.
+	 * 
+	 * @return deallocator of the direct buffers, or null if none is
+	 *         accessible.
+	 */
+	private static Consumer<ByteBuffer> findDeallocator() {
+		try {
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+			Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+			theUnsafe.setAccessible(true);
+			Object unsafe = theUnsafe.get(null);
+			return buffer -> invoke(invokeCleaner, unsafe, buffer);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			// not Java 9+, try the Java 8 buffer cleaner
+		}
+		try {
+			Method cleaner = Class.forName("java.nio.DirectByteBuffer").getMethod("cleaner");
+			cleaner.setAccessible(true);
+			Method clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+			return buffer -> invoke(clean, invoke(cleaner, buffer));
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	private static Object invoke(Method method, Object target, Object... args) {
+		try {
+			return method.invoke(target, args);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Direct buffer deallocation failed", e);
+		}
+	}
+
+	/**
+	 * Throws IllegalStateException if this trie is closed.
+	 */
+	private void checkOpen() {
+		if (chunks == null) {
+			throw new IllegalStateException("Trie is closed");
+		}
+	}
+
+	/**
+	 * Returns index of the node associated with passing string key.
+	 * 
+	 * @param key
+	 *            - string key to search for.
+	 * @return index of the node, to which passing key corresponds, or NO_NODE
+	 *         if the key association is absent.
+	 */
+	private int find(String key) {
+		int node = ROOT;
+		for (int k = 0; k < key.length(); k++) {
+			node = read(node, key.charAt(k) - RWayTrie.ALPHABET_FIRST_LETTER_ASCII);
+			if (node == ROOT) {
+				return NO_NODE;
+			}
+		}
+		return node;
+	}
+
+	/**
+	 * Returns a cleared node record taken from the free list, or allocated in
+	 * the chunks if the free list is empty.
+	 * 
+	 * @return index of the node.
+	 */
+	private int newNode() {
+		int node;
+		if (freeHead != NO_NODE) {
+			node = freeHead;
+			freeHead = read(node, 0);
+			write(node, 0, ROOT);
+			return node;
+		}
+		node = allocated++;
+		if ((node >>> CHUNK_SHIFT) == chunks.size()) {
+			ByteBuffer chunk = ByteBuffer.allocateDirect(CHUNK_NODES * NODE_SLOTS * Integer.BYTES);
+			chunkBuffers.add(chunk);
+			chunks.add(chunk.order(ByteOrder.nativeOrder()).asIntBuffer());
+		}
+		return node;
+	}
+
+	/**
+	 * Clears the node record and puts it to the free list. First descendant
+	 * slot of the free node keeps index of the next node of the free list.
+	 * 
+	 * @param node
+	 *            - index of the detached node.
+	 */
+	private void freeNode(int node) {
+		for (int slot = 0; slot < NODE_SLOTS; slot++) {
+			write(node, slot, 0);
+		}
+		write(node, 0, freeHead);
+		freeHead = node;
+	}
+
+	private int read(int node, int slot) {
+		return chunks.get(node >>> CHUNK_SHIFT).get((node & (CHUNK_NODES - 1)) * NODE_SLOTS + slot);
+	}
+
+	private void write(int node, int slot, int value) {
+		chunks.get(node >>> CHUNK_SHIFT).put((node & (CHUNK_NODES - 1)) * NODE_SLOTS + slot, value);
+	}
+}
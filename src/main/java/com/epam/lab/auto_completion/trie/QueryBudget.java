@@ -0,0 +1,83 @@
+package com.epam.lab.auto_completion.trie;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits of the work a TrieQuery may do: a deadline, a maximal number of the
+ * visited nodes (or scanned keys for the implementations without nodes) and a
+ * cancellation flag, which can be set from another thread. Traversals check
+ * the budget as they go and stop when it runs out, returning the keys found
+ * so far as a result flagged truncated. Node visits are checked on every
+ * visit; the deadline and the cancellation are checked every
+ * CHECK_INTERVAL visits, so System.nanoTime() is not called per node. Budget
+ * without limits is never exhausted. Deadline is absolute, so a budget can be
+ * shared by the queries serving the same request.
+ */
+public class QueryBudget {
+
+	/**
+	 * Number of the node visits between the checks of the deadline and of the
+	 * cancellation. Power of two.
+	 */
+	static final int CHECK_INTERVAL = 64;
+
+	private long deadline;
+	private boolean hasDeadline;
+	private long maxNodeVisits = Long.MAX_VALUE;
+	private volatile boolean cancelled;
+
+	/**
+	 * Sets the deadline of the queries to the specified time from now.
+	 * 
+	 * @param timeout
+	 *            - time left for the queries, not negative.
+	 * @param unit
+	 *            - time unit of the timeout.
+	 */
+	public void setTimeout(long timeout, TimeUnit unit) {
+		if (timeout < 0) {
+			throw new IllegalArgumentException("Negative timeout: " + timeout);
+		}
+		deadline = System.nanoTime() + unit.toNanos(timeout);
+		hasDeadline = true;
+	}
+
+	/**
+	 * Sets maximal number of the nodes a query may visit.
+	 * 
+	 * @param maxNodeVisits
+	 *            - maximal number of the visited nodes, positive.
+	 */
+	public void setMaxNodeVisits(long maxNodeVisits) {
+		if (maxNodeVisits <= 0) {
+			throw new IllegalArgumentException("Non-positive number of node visits: " + maxNodeVisits);
+		}
+		this.maxNodeVisits = maxNodeVisits;
+	}
+
+	public long getMaxNodeVisits() {
+		return maxNodeVisits;
+	}
+
+	/**
+	 * Cancels the queries using this budget. Running traversals stop at their
+	 * next check and return the partial results.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Returns whether the queries using this budget should stop because of
+	 * the cancellation or of the passed deadline.
+	 * 
+	 * @return true if the queries should stop.
+	 */
+	public boolean isExpired() {
+		return cancelled || (hasDeadline && System.nanoTime() - deadline >= 0);
+	}
+}
@@ -0,0 +1,49 @@
+package com.epam.lab.auto_completion.trie;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Result of the TrieQuery: the selected string keys in the query order and
+ * their number. Result of the count query contains no keys, only their
+ * number. Result is truncated if the query budget ran out before the
+ * traversal was complete; such result holds the keys found so far.
+ */
+public class QueryResult implements Iterable<String> {
+	private final List<String> words;
+	private final int count;
+	private final boolean truncated;
+
+	public QueryResult(List<String> words, int count) {
+		this(words, count, false);
+	}
+
+	public QueryResult(List<String> words, int count, boolean truncated) {
+		super();
+		this.words = words;
+		this.count = count;
+		this.truncated = truncated;
+	}
+
+	public List<String> getWords() {
+		return words;
+	}
+
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * Returns whether the query budget ran out, so the result may miss some
+	 * keys.
+	 * 
+	 * @return true if the result is partial.
+	 */
+	public boolean isTruncated() {
+		return truncated;
+	}
+
+	public Iterator<String> iterator() {
+		return words.iterator();
+	}
+}
@@ -1,322 +1,1501 @@
-package com.epam.lab.auto_completion.trie;
-
-import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Queue;
-
-/**
- * String tree ('trie') based implementation of Trie interface. Alphabet of the
- * class consists of 26 lowercase letters of English alphabet. In addition to
- * the methods specified in the Trie interface, class also provides method for
- * value retrieval by the key.
- * 
- * @param <T>
- *            - the type of mapped values
- *
- * @author Sergey Terletskiy
- * @version 1.0 03/18/2016
- */
-public class RWayTrie<T> implements Trie<T> {
-
-	/**
-	 * String tree alphabet length
-	 */
-	private static final int ALPHABET_LENGTH = 26;
-	/**
-	 * ASCII code of the alphabet's first letter that corresponds to the
-	 * lowercase 'a' letter of English alphabet.
-	 */
-	private static final int ALPHABET_FIRST_LETTER_ASCII = 97;
-	/**
-	 * Alias for zero length string.
-	 */
-	private static final String EMPTY_STRING = "";
-
-	/**
-	 * Instance of the class encapsulates value, to which key is mapped, and an
-	 * array of descendants of the same Node type.
-	 */
-	@SuppressWarnings("unchecked")
-	private static class Node<T> {
-		/**
-		 * Array of descendants of Node type
-		 */
-		Node<T>[] next = (Node<T>[]) new Node[ALPHABET_LENGTH];
-		/**
-		 * Value, to which key is mapped
-		 */
-		T value;
-	}
-
-	/**
-	 * Root of this string tree ('trie')
-	 */
-	private Node<T> root = new Node<>();
-	/**
-	 * Current length of this string tree ('trie')
-	 */
-	private int size;
-
-	/**
-	 * Associates the specified value with the specified key in this tree. If
-	 * the map previously contained a mapping for the key, the old value is
-	 * replaced. Specified value and key are encapsulated in Tuple instance.
-	 * Preliminary check of the passing Tuple instance is performed (key or/and
-	 * a value is/are null values or string key contains chars that are not
-	 * specified in classes' alphabet).
-	 * 
-	 * @param tuple
-	 *            - object encapsulating key with which the specified value is
-	 *            to be associated and value to be associated with the specified
-	 *            key.
-	 */
-	public void add(Trie.Tuple<T> tuple) {
-		if (isTermValid(tuple.getTerm()) && tuple.getValue() != null) {
-			root = add(root, tuple.getTerm().toLowerCase(), tuple.getValue(), 0);
-			size++;
-		}
-	}
-
-	/**
-	 * Checks if the passing string value can serve as a key in this string
-	 * tree. Check includes null verification and verification of belonging of
-	 * each string char to the alphabet of this tree.
-	 * 
-	 * @param term
-	 *            - string value to be checked.
-	 * @return Boolean value indicating whether the passing string value can
-	 *         serve as a key.
-	 * 
-	 */
-	private boolean isTermValid(String term) {
-		if (term == null) {
-			return false;
-		}
-		if (term.length() != 0) {
-			int hiBorder = ALPHABET_FIRST_LETTER_ASCII + ALPHABET_LENGTH;
-			for (char c : term.toCharArray()) {
-				if (c < ALPHABET_FIRST_LETTER_ASCII || c > hiBorder) {
-					return false;
-				}
-			}
-		}
-		return true;
-	}
-
-	/**
-	 * Repeats the functionality of public add() method. Adds recursively the
-	 * association between the specified string key and value to the string tree
-	 * ('trie') with the specified root node.
-	 * 
-	 * @param node
-	 *            - root node of the string tree ('trie') the association to be
-	 *            added in.
-	 * @param term
-	 *            - key with which the specified value is to be associated.
-	 * @param value
-	 *            - value to be associated with the specified key
-	 * @param k
-	 *            - current string key length
-	 */
-	private Node<T> add(Node<T> node, String term, T value, int k) {
-		if (node == null) {
-			node = new Node<>();
-		}
-		if (term.length() == k) {
-			node.value = value;
-			return node;
-		}
-		int childIndex = term.charAt(k) - ALPHABET_FIRST_LETTER_ASCII;
-		node.next[childIndex] = add(node.next[childIndex], term, value, k + 1);
-		return node;
-	}
-
-	/**
-	 * Returns true if this trie contains a mapping for the specified word,
-	 * which serves as a key.
-	 * 
-	 * @param word
-	 *            - key whose presence in this trie is to be tested
-	 * @return Boolean value indicating if the mapping exists for the specified
-	 *         key.
-	 */
-	public boolean contains(String word) {
-		if (isTermValid(word)) {
-			Node<T> node = get(root, word, 0);
-			if (node != null && node.value != null) {
-				return true;
-			}
-		}
-		return false;
-	}
-
-	/**
-	 * Removes the mapping for a key from this trie if it is present. Returns
-	 * whether the key to delete was found in this trie.
-	 * 
-	 * @param word
-	 *            - key whose mapping is to be removed from the trie
-	 * @return true if key to delete was found in the trie.
-	 */
-	public boolean delete(String word) {
-		if (isTermValid(word)) {
-			int initSize = size;
-			delete(root, word, 0);
-			if (initSize != size) {
-				return true;
-			}
-		}
-		return false;
-	}
-
-	/**
-	 * Repeats the functionality of public delete() method. Removes recursively
-	 * the mapping for a string key from a string tree ('trie'), specified by a
-	 * passing root node.
-	 * 
-	 * @param node
-	 *            - root node of the string tree ('trie') the key association to
-	 *            be removed from.
-	 * @param word
-	 *            - key whose mapping is to be removed from the trie
-	 * @param k
-	 *            - current string key length
-	 */
-	private Node<T> delete(Node<T> node, String word, int k) {
-		if (node == null) {
-			return null;
-		}
-		if (word.length() == k && node.value != null) {
-			node.value = null;
-			size--;
-			if (isLeaf(node)) {
-				return null;
-			}
-			return node;
-		} else if (k >= word.length()) {
-			return null;
-		}
-		int childIndex = word.charAt(k) - ALPHABET_FIRST_LETTER_ASCII;
-		Node<T> toDelete = delete(node.next[childIndex], word, k + 1);
-		node.next[childIndex] = toDelete;
-		if (toDelete == null && node.value == null && isLeaf(node)) {
-			return null;
-		}
-		return node;
-	}
-
-	/**
-	 * Checks if the passing node is a leaf in the string tree (i.e. if the
-	 * passing node has no non-null descendants).
-	 * 
-	 * @param node
-	 *            - node to be checked
-	 * @return Boolean value indicating if the passing node is a leaf.
-	 */
-	private boolean isLeaf(Node<T> node) {
-		for (Node<T> child : node.next) {
-			if (child != null) {
-				return false;
-			}
-		}
-		return true;
-	}
-
-	/**
-	 * Returns the value to which the specified string key is mapped, or null if
-	 * this map contains no mapping for the key.
-	 * 
-	 * @param key
-	 *            - the key whose associated value is to be returned
-	 * @return the value to which the specified key is mapped, or null if this
-	 *         map contains no mapping for the key
-	 */
-	public T get(String key) {
-		Node<T> found = get(root, key, 0);
-		return (found == null) ? null : found.value;
-	}
-
-	/**
-	 * Searches recursively for the node associated with passing string key
-	 * value in the string tree ('trie') with passing root node.
-	 * 
-	 * @param node
-	 *            - root node of the string tree to search in.
-	 * @param key
-	 *            - string key to search for.
-	 * @param k
-	 *            - current string key length
-	 * @return String tree node, to which passing key value corresponds, or null
-	 *         if the key association is absent.
-	 */
-	private Node<T> get(Node<T> node, String key, int k) {
-		if (node == null) {
-			return null;
-		}
-		if (key.length() == k) {
-			return node;
-		}
-		int childIndex = key.charAt(k) - ALPHABET_FIRST_LETTER_ASCII;
-		return get(node.next[childIndex], key, k + 1);
-	}
-
-	/**
-	 * Returns an Iterable view of the string keys contained in this trie.
-	 * 
-	 * @return an Iterable view of the string keys contained in this trie.
-	 */
-	public Iterable<String> words() {
-		return wordsWithPrefix(EMPTY_STRING);
-	}
-
-	/**
-	 * Returns an Iterable view of the string keys with a specific prefix
-	 * contained in this trie.
-	 * 
-	 * @param pref
-	 *            - prefix of the string values should contained in returned
-	 *            Iterable object.
-	 * @return an Iterable view of the string keys with a specific prefix
-	 *         contained in this trie.
-	 */
-	public Iterable<String> wordsWithPrefix(String pref) {
-		List<String> result = new ArrayList<>();
-		if (isTermValid(pref)) {
-			Queue<Node<T>> nodeQ = new LinkedList<>();
-			Queue<String> wordQ = new LinkedList<>();
-			nodeQ.offer(root);
-			while (!nodeQ.isEmpty()) {
-				Node<T> curNode = nodeQ.poll();
-				String curPrefix = (wordQ.peek() == null) ? EMPTY_STRING : wordQ.poll();
-				if (curNode.value != null && curPrefix.length() >= pref.length()) {
-					result.add(curPrefix);
-				}
-				for (int i = 0; i < ALPHABET_LENGTH; i++) {
-					if (curNode.next[i] != null) {
-						char curChar = (char) (i + ALPHABET_FIRST_LETTER_ASCII);
-						String curWord = curPrefix.concat(String.valueOf(curChar));
-						if (pref.length() >= curWord.length()) {
-							int index = curWord.length() - 1;
-							if (pref.charAt(index) != curWord.charAt(index)) {
-								continue;
-							}
-						}
-						wordQ.offer(curWord);
-						nodeQ.offer(curNode.next[i]);
-					}
-				}
-			}
-		}
-		return result;
-	}
-
-	/**
-	 * Returns the number of key-value mappings in this trie.
-	 * 
-	 * @return the number of key-value mappings in this trie.
-	 */
-	public int size() {
-		return size;
-	}
-}
+package com.epam.lab.auto_completion.trie;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * String tree ('trie') based implementation of Trie interface. Alphabet of the
+ * class consists of 26 lowercase letters of English alphabet. In addition to
+ * the methods specified in the Trie interface, class also provides method for
+ * value retrieval by the key, compaction of the node graph, an optional pool
+ * of detached nodes, which are reused by the subsequent add() calls,
+ * optional lists of the shortest keys materialized in the shallow nodes and
+ * selection frequencies learned per key.
+ * <p>
+ * Writers (add(), delete(), the compaction and the setters) synchronize on
+ * the trie instance, so they are serialized with each other and with the
+ * check of the background compaction. Readers do not lock: a reader running
+ * concurrently with a writer sees each key either added or not, but a query
+ * may miss keys changed during it. A child is published before its bit is
+ * set in the descendants mask and its bit is cleared before it is detached,
+ * yet a reader may still find a slot emptied after it read the mask, so
+ * every traversal skips the null descendants. Selections and the frequency
+ * decay hold only the shared frequency lock, so they run concurrently with
+ * each other, with the readers and with the writers; compaction holds it
+ * exclusively while it carries the frequencies over to the rebuilt graph.
+ * Node pooling reuses the nodes detached by delete(), which a concurrent
+ * reader or an open stream may still hold, so it may be switched on only if
+ * the trie is confined to one thread and is not modified while its streams
+ * are consumed; background compaction, which implies concurrent readers, is
+ * refused while the pool is on.
+ * 
+ * @param <T>
+ *            - the type of mapped values
+ *
+ * @author Sergey Terletskiy
+ * @version 1.0 03/18/2016
+ */
+public class RWayTrie<T> implements Trie<T> {
+
+	/**
+	 * String tree alphabet length
+	 */
+	static final int ALPHABET_LENGTH = 26;
+	/**
+	 * ASCII code of the alphabet's first letter that corresponds to the
+	 * lowercase 'a' letter of English alphabet.
+	 */
+	static final int ALPHABET_FIRST_LETTER_ASCII = 97;
+	/**
+	 * Alias for zero length string.
+	 */
+	static final String EMPTY_STRING = "";
+	/**
+	 * Estimated heap size of one node with its descendants array, assuming
+	 * compressed references: 40 bytes of the node and 120 bytes of the array.
+	 */
+	static final int NODE_BYTES = 160;
+
+	/**
+	 * Instance of the class encapsulates value, to which key is mapped, and an
+	 * array of descendants of the same Node type.
+	 */
+	@SuppressWarnings("unchecked")
+	private static class Node<T> {
+		/**
+		 * Array of descendants of Node type
+		 */
+		Node<T>[] next = (Node<T>[]) new Node[ALPHABET_LENGTH];
+		/**
+		 * Bit mask of the non-null descendants: bit i is set if next[i] is
+		 * not null. Descendants are iterated over the mask bits instead of
+		 * all the array elements. Volatile, so the lock-free readers see the
+		 * child published before its bit.
+		 */
+		volatile int mask;
+		/**
+		 * Value, to which key is mapped
+		 */
+		T value;
+		/**
+		 * Number of the keys in the subtree with this node as a root
+		 */
+		int count;
+		/**
+		 * Shortest keys of the subtree sorted by length and lexicographically,
+		 * or null if the list is not materialized for this node. Array is
+		 * replaced, not modified, on update; field is volatile, so a reader
+		 * sees the fully filled array.
+		 */
+		volatile String[] hot;
+		/**
+		 * Learned selection frequency of the key of this node. Updated
+		 * atomically through FREQUENCY, so concurrent selections are not lost
+		 * and queries read it without locking.
+		 */
+		volatile int frequency;
+		/**
+		 * Upper bound of the selection frequencies of the keys of the subtree
+		 * with this node as a root. Raised by the selections and halved by
+		 * the decay together with the frequencies, so the frequency ordered
+		 * query skips the subtrees, which cannot contain the top keys.
+		 */
+		volatile int maxFrequency;
+
+		/**
+		 * Copies the state of the specified node, except its descendants, to
+		 * this node.
+		 * 
+		 * @param source
+		 *            - node the state is copied from.
+		 */
+		void copyFrom(Node<T> source) {
+			value = source.value;
+			count = source.count;
+			hot = source.hot;
+			frequency = source.frequency;
+			maxFrequency = source.maxFrequency;
+		}
+
+		/**
+		 * Sets the descendant of this node for the specified char index,
+		 * keeping the descendants mask up to date.
+		 * 
+		 * @param index
+		 *            - index of the char in the alphabet.
+		 * @param child
+		 *            - descendant node, or null to remove the descendant.
+		 */
+		void setChild(int index, Node<T> child) {
+			if (child == null) {
+				mask &= ~(1 << index);
+				next[index] = null;
+			} else {
+				next[index] = child;
+				mask |= 1 << index;
+			}
+		}
+
+		/**
+		 * Resets the state of this node, so it can be reused as a newly
+		 * created one.
+		 */
+		void clear() {
+			value = null;
+			count = 0;
+			hot = null;
+			frequency = 0;
+			maxFrequency = 0;
+			int oldMask = mask;
+			mask = 0;
+			for (; oldMask != 0; oldMask &= oldMask - 1) {
+				next[Integer.numberOfTrailingZeros(oldMask)] = null;
+			}
+		}
+	}
+
+	/**
+	 * Atomic updater of the node selection frequencies. Field updater is used
+	 * instead of an atomic object per node, so the counter costs no memory
+	 * beyond the int field, and the contention is striped by the keys.
+	 */
+	@SuppressWarnings("rawtypes")
+	private static final AtomicIntegerFieldUpdater<Node> FREQUENCY = AtomicIntegerFieldUpdater
+			.newUpdater(Node.class, "frequency");
+	/**
+	 * Atomic updater of the subtree frequency bounds of the nodes.
+	 */
+	@SuppressWarnings("rawtypes")
+	private static final AtomicIntegerFieldUpdater<Node> MAX_FREQUENCY = AtomicIntegerFieldUpdater
+			.newUpdater(Node.class, "maxFrequency");
+
+	/**
+	 * Entry of the best-first frequency ordered traversal: either a subtree
+	 * pending expansion, ranked by its frequency bound, or a key of the
+	 * expanded node, ranked by its frequency.
+	 */
+	private static class RankEntry<T> {
+		/**
+		 * Root of the pending subtree, or null for the key entry.
+		 */
+		final Node<T> node;
+		final String word;
+		final int frequency;
+
+		RankEntry(Node<T> node, String word, int frequency) {
+			this.node = node;
+			this.word = word;
+			this.frequency = frequency;
+		}
+	}
+
+	/**
+	 * Order of the best-first traversal entries, the same as the order of the
+	 * frequency ordered result. Keys of a subtree are never ahead of the
+	 * subtree entry: their frequencies do not exceed its bound, they are not
+	 * shorter than its root key and start with it.
+	 */
+	private static final Comparator<RankEntry<?>> RANK_ENTRY_ORDER = Comparator
+			.comparingInt((RankEntry<?> entry) -> -entry.frequency).thenComparingInt(entry -> entry.word.length())
+			.thenComparing(entry -> entry.word);
+
+	/**
+	 * Spliterator over the string keys of the string tree ('trie') part. Part
+	 * of the tree is represented by a sequence of the subtrees pending
+	 * traversal; each subtree is traversed depth-first, so the keys are
+	 * reported in lexicographic order. Spliterator is split by passing the
+	 * first half of the pending subtrees to the new spliterator. If only one
+	 * subtree is pending, its root is expanded into its descendants first.
+	 * Number of the keys to be reported is known exactly from the key counts
+	 * of the pending subtree roots.
+	 */
+	private static class NodeSpliterator<T> implements Spliterator<String> {
+		/**
+		 * Subtree pending traversal: its root node and the key of the root.
+		 * Root of the expanded subtree has its descendants already pending,
+		 * so only the root key remains to be reported.
+		 */
+		private static class Frame<T> {
+			final Node<T> node;
+			final String word;
+			boolean expanded;
+
+			Frame(Node<T> node, String word) {
+				this.node = node;
+				this.word = word;
+			}
+		}
+
+		/**
+		 * Pending subtrees in the traversal order.
+		 */
+		private final Deque<Frame<T>> frames;
+		/**
+		 * Number of the keys to be reported.
+		 */
+		private long remaining;
+
+		NodeSpliterator(Deque<Frame<T>> frames) {
+			this.frames = frames;
+			for (Frame<T> frame : frames) {
+				remaining += keyCount(frame);
+			}
+		}
+
+		/**
+		 * Returns number of the keys to be reported by the traversal of the
+		 * pending subtree.
+		 * 
+		 * @param frame
+		 *            - pending subtree.
+		 * @return number of the keys to be reported.
+		 */
+		private static <T> int keyCount(Frame<T> frame) {
+			if (frame.expanded) {
+				return (frame.node.value == null) ? 0 : 1;
+			}
+			return frame.node.count;
+		}
+
+		public boolean tryAdvance(Consumer<? super String> action) {
+			while (!frames.isEmpty()) {
+				Frame<T> frame = frames.pollFirst();
+				if (!frame.expanded) {
+					expand(frame);
+				}
+				if (frame.node.value != null) {
+					remaining--;
+					action.accept(frame.word);
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * Puts the descendants of the frame root node in front of the pending
+		 * subtrees.
+		 * 
+		 * @param frame
+		 *            - subtree to be expanded.
+		 */
+		private void expand(Frame<T> frame) {
+			frame.expanded = true;
+			for (int mask = frame.node.mask; mask != 0;) {
+				int i = highestIndex(mask);
+				mask ^= 1 << i;
+				Node<T> child = frame.node.next[i];
+				if (child == null) {
+					continue;
+				}
+				char curChar = (char) (i + ALPHABET_FIRST_LETTER_ASCII);
+				frames.offerFirst(new Frame<>(child, frame.word + curChar));
+			}
+		}
+
+		public Spliterator<String> trySplit() {
+			if (frames.size() == 1 && !frames.peekFirst().expanded) {
+				Frame<T> frame = frames.pollFirst();
+				expand(frame);
+				if (frame.node.value != null) {
+					frames.offerFirst(frame);
+				}
+			}
+			int splitSize = frames.size() / 2;
+			if (splitSize == 0) {
+				return null;
+			}
+			Deque<Frame<T>> prefix = new ArrayDeque<>();
+			for (int i = 0; i < splitSize; i++) {
+				prefix.offerLast(frames.pollFirst());
+			}
+			NodeSpliterator<T> split = new NodeSpliterator<>(prefix);
+			remaining -= split.remaining;
+			return split;
+		}
+
+		public long estimateSize() {
+			return remaining;
+		}
+
+		public int characteristics() {
+			return ORDERED | DISTINCT | NONNULL | SIZED | SUBSIZED;
+		}
+	}
+
+	/**
+	 * Root of this string tree ('trie'). Field is volatile, so the root
+	 * replaced by the background compaction is visible to the reader threads.
+	 */
+	private volatile Node<T> root = new Node<>();
+	/**
+	 * Current length of this string tree ('trie')
+	 */
+	private int size;
+	/**
+	 * Number of the structural modifications of this trie. Used to detect
+	 * whether the trie was modified during the background compaction. Guarded
+	 * by the trie monitor.
+	 */
+	private int modCount;
+	/**
+	 * Lock of the selection frequencies: held shared by the selections and
+	 * the decay, and exclusively by the compaction while it replaces the node
+	 * graph, so no frequency update is made to the replaced graph after its
+	 * frequencies are carried over.
+	 */
+	private final ReadWriteLock frequencyLock = new ReentrantReadWriteLock();
+	/**
+	 * Pool of the nodes detached by delete() calls, or null if node pooling is
+	 * switched off.
+	 */
+	private Deque<Node<T>> nodePool;
+	/**
+	 * Maximal number of the nodes kept in the node pool.
+	 */
+	private int nodePoolCapacity;
+	/**
+	 * Maximal length of the prefixes, whose nodes keep the lists of the
+	 * shortest keys. Zero if the lists are switched off.
+	 */
+	private int hotDepth;
+	/**
+	 * Maximal size of the shortest keys lists.
+	 */
+	private int hotSize;
+
+	/**
+	 * Sets the maximal number of the detached nodes kept for reuse. Nodes
+	 * pruned by delete() calls are put to the pool and taken from it by the
+	 * subsequent add() calls instead of allocation of the new ones, so the
+	 * add/delete cycle does not produce garbage. Zero capacity switches node
+	 * pooling off. Pooling is safe only for the trie confined to one thread
+	 * (see the class description).
+	 * 
+	 * @param capacity
+	 *            - maximal number of the pooled nodes.
+	 */
+	public synchronized void setNodePoolCapacity(int capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("Negative pool capacity: " + capacity);
+		}
+		nodePoolCapacity = capacity;
+		if (capacity == 0) {
+			nodePool = null;
+		} else if (nodePool == null) {
+			nodePool = new ArrayDeque<>();
+		} else {
+			while (nodePool.size() > capacity) {
+				nodePool.poll();
+			}
+		}
+	}
+
+	/**
+	 * Switches on materialization of the shortest keys lists in the nodes of
+	 * the prefixes not longer than the specified depth. Each of those nodes
+	 * keeps at most the specified number of the shortest keys of its subtree
+	 * sorted by length and lexicographically. Lists are updated by add() and
+	 * delete() calls and answer the length ordered queries for the short
+	 * prefixes without traversal whenever the list contains all the keys
+	 * the query requires. Zero depth switches the lists off.
+	 * 
+	 * @param depth
+	 *            - maximal length of the prefix, whose node keeps the list.
+	 * @param size
+	 *            - maximal number of the keys in the list.
+	 */
+	public synchronized void setHotPrefixes(int depth, int size) {
+		if (depth < 0 || (depth > 0 && size <= 0)) {
+			throw new IllegalArgumentException("Invalid hot prefix depth or size: " + depth + ", " + size);
+		}
+		int oldDepth = hotDepth;
+		hotDepth = depth;
+		hotSize = size;
+		List<Node<T>> level = new ArrayList<>();
+		List<String> prefixes = new ArrayList<>();
+		level.add(root);
+		prefixes.add(EMPTY_STRING);
+		for (int k = 1; k <= Math.max(depth, oldDepth) && !level.isEmpty(); k++) {
+			List<Node<T>> nextLevel = new ArrayList<>();
+			List<String> nextPrefixes = new ArrayList<>();
+			for (int j = 0; j < level.size(); j++) {
+				Node<T> node = level.get(j);
+				for (int mask = node.mask; mask != 0; mask &= mask - 1) {
+					int i = Integer.numberOfTrailingZeros(mask);
+					Node<T> child = node.next[i];
+					if (child == null) {
+						continue;
+					}
+					String prefix = prefixes.get(j) + (char) (i + ALPHABET_FIRST_LETTER_ASCII);
+					child.hot = (k <= depth) ? shortest(child, prefix, size) : null;
+					nextLevel.add(child);
+					nextPrefixes.add(prefix);
+				}
+			}
+			level = nextLevel;
+			prefixes = nextPrefixes;
+		}
+	}
+
+	/**
+	 * Returns array of the shortest keys of the string tree ('trie') with the
+	 * specified root node. Keys are sorted by length and lexicographically.
+	 * 
+	 * @param node
+	 *            - root node of the string tree.
+	 * @param prefix
+	 *            - key of the root node.
+	 * @param limit
+	 *            - maximal number of the keys.
+	 * @return array of the shortest keys.
+	 */
+	private String[] shortest(Node<T> node, String prefix, int limit) {
+		TrieQuery query = new TrieQuery(prefix, TrieQuery.Order.LENGTH);
+		query.setLimit(limit);
+		TrieQuery.Collector collector = new TrieQuery.Collector(query);
+		breadthFirst(node, prefix, collector);
+		List<String> words = collector.result().getWords();
+		return words.toArray(new String[words.size()]);
+	}
+
+	/**
+	 * Returns copy of the shortest keys list with the specified key inserted
+	 * at its place. If the list is full, its last key is dropped; if the
+	 * specified key is not shorter than the last key of the full list, the
+	 * list itself is returned.
+	 * 
+	 * @param hot
+	 *            - shortest keys list, or null if it is empty.
+	 * @param term
+	 *            - key to be inserted.
+	 * @return updated shortest keys list.
+	 */
+	private String[] insertHot(String[] hot, String term) {
+		if (hot == null) {
+			return new String[] { term };
+		}
+		int index = Arrays.binarySearch(hot, term, RWayTrie::compareShortest);
+		if (index >= 0) {
+			return hot;
+		}
+		index = -index - 1;
+		if (index >= hotSize) {
+			return hot;
+		}
+		String[] updated = new String[Math.min(hot.length + 1, hotSize)];
+		System.arraycopy(hot, 0, updated, 0, index);
+		updated[index] = term;
+		System.arraycopy(hot, index, updated, index + 1, updated.length - index - 1);
+		return updated;
+	}
+
+	/**
+	 * Compares string keys by length and then lexicographically, which is the
+	 * order of the breadth-first traversal.
+	 */
+	static int compareShortest(String first, String second) {
+		int diff = first.length() - second.length();
+		return (diff != 0) ? diff : first.compareTo(second);
+	}
+
+	/**
+	 * Associates the specified value with the specified key in this tree. If
+	 * the map previously contained a mapping for the key, the old value is
+	 * replaced. Specified value and key are encapsulated in Tuple instance.
+	 * Preliminary check of the passing Tuple instance is performed (key or/and
+	 * a value is/are null values or string key contains chars that are not
+	 * specified in classes' alphabet).
+	 * 
+	 * @param tuple
+	 *            - object encapsulating key with which the specified value is
+	 *            to be associated and value to be associated with the specified
+	 *            key.
+	 */
+	public synchronized void add(Trie.Tuple<T> tuple) {
+		if (isTermValid(tuple.getTerm()) && tuple.getValue() != null) {
+			String term = tuple.getTerm();
+			Node<T> found = get(root, term, 0);
+			boolean isNew = found == null || found.value == null;
+			root = add(root, term, tuple.getValue(), 0, isNew);
+			if (isNew) {
+				size++;
+			}
+			modCount++;
+		}
+	}
+
+	/**
+	 * Checks if the passing string value can serve as a key in this string
+	 * tree. Check includes null verification and verification of belonging of
+	 * each string char to the alphabet of this tree. Chars are read in place
+	 * and checked without branches: the offsets of the char from both
+	 * alphabet borders are or-ed into an accumulator, whose sign bit is set
+	 * if any char is beyond the alphabet, so the loop has no early exits and
+	 * is compiled into straight-line code.
+	 * 
+	 * @param term
+	 *            - string value to be checked.
+	 * @return Boolean value indicating whether the passing string value can
+	 *         serve as a key.
+	 * 
+	 */
+	static boolean isTermValid(String term) {
+		if (term == null) {
+			return false;
+		}
+		int lastLetter = ALPHABET_FIRST_LETTER_ASCII + ALPHABET_LENGTH - 1;
+		int outOfAlphabet = 0;
+		for (int i = 0; i < term.length(); i++) {
+			int c = term.charAt(i);
+			outOfAlphabet |= (c - ALPHABET_FIRST_LETTER_ASCII) | (lastLetter - c);
+		}
+		return outOfAlphabet >= 0;
+	}
+
+	/**
+	 * Returns index of the highest bit set in the descendants mask, i.e. the
+	 * alphabet index of the last descendant.
+	 * 
+	 * @param mask
+	 *            - non-zero descendants mask.
+	 * @return index of the highest set bit.
+	 */
+	private static int highestIndex(int mask) {
+		return Integer.SIZE - 1 - Integer.numberOfLeadingZeros(mask);
+	}
+
+	/**
+	 * Repeats the functionality of public add() method. Adds recursively the
+	 * association between the specified string key and value to the string tree
+	 * ('trie') with the specified root node.
+	 * 
+	 * @param node
+	 *            - root node of the string tree ('trie') the association to be
+	 *            added in.
+	 * @param term
+	 *            - key with which the specified value is to be associated.
+	 * @param value
+	 *            - value to be associated with the specified key
+	 * @param k
+	 *            - current string key length
+	 * @param isNew
+	 *            - whether the key is absent in the string tree, so the key
+	 *            counts of the nodes on its path are to be incremented.
+	 */
+	private Node<T> add(Node<T> node, String term, T value, int k, boolean isNew) {
+		if (node == null) {
+			node = newNode();
+		}
+		if (isNew) {
+			node.count++;
+			if (k > 0 && k <= hotDepth) {
+				node.hot = insertHot(node.hot, term);
+			}
+		}
+		if (term.length() == k) {
+			node.value = value;
+			return node;
+		}
+		int childIndex = term.charAt(k) - ALPHABET_FIRST_LETTER_ASCII;
+		node.setChild(childIndex, add(node.next[childIndex], term, value, k + 1, isNew));
+		return node;
+	}
+
+	/**
+	 * Returns a node taken from the node pool, or newly created one if the pool
+	 * is empty or switched off.
+	 * 
+	 * @return node without value and descendants.
+	 */
+	private Node<T> newNode() {
+		Node<T> node = (nodePool == null) ? null : nodePool.poll();
+		return (node == null) ? new Node<>() : node;
+	}
+
+	/**
+	 * Puts the node detached from this string tree to the node pool if node
+	 * pooling is switched on and the pool is not full. Root node is never
+	 * pooled, as it remains attached to this trie.
+	 * 
+	 * @param node
+	 *            - detached node.
+	 */
+	private void releaseNode(Node<T> node) {
+		if (nodePool != null && node != root && nodePool.size() < nodePoolCapacity) {
+			node.clear();
+			nodePool.push(node);
+		}
+	}
+
+	/**
+	 * Returns true if this trie contains a mapping for the specified word,
+	 * which serves as a key.
+	 * 
+	 * @param word
+	 *            - key whose presence in this trie is to be tested
+	 * @return Boolean value indicating if the mapping exists for the specified
+	 *         key.
+	 */
+	public boolean contains(String word) {
+		if (isTermValid(word)) {
+			Node<T> node = get(root, word, 0);
+			if (node != null && node.value != null) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Removes the mapping for a key from this trie if it is present. Returns
+	 * whether the key to delete was found in this trie.
+	 * 
+	 * @param word
+	 *            - key whose mapping is to be removed from the trie
+	 * @return true if key to delete was found in the trie.
+	 */
+	public synchronized boolean delete(String word) {
+		if (isTermValid(word)) {
+			int initSize = size;
+			delete(root, word, 0);
+			if (initSize != size) {
+				modCount++;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Repeats the functionality of public delete() method. Removes recursively
+	 * the mapping for a string key from a string tree ('trie'), specified by a
+	 * passing root node.
+	 * 
+	 * @param node
+	 *            - root node of the string tree ('trie') the key association to
+	 *            be removed from.
+	 * @param word
+	 *            - key whose mapping is to be removed from the trie
+	 * @param k
+	 *            - current string key length
+	 */
+	private Node<T> delete(Node<T> node, String word, int k) {
+		if (node == null) {
+			return null;
+		}
+		if (word.length() == k && node.value != null) {
+			node.value = null;
+			node.frequency = 0;
+			node.count--;
+			size--;
+			if (isLeaf(node)) {
+				releaseNode(node);
+				return null;
+			}
+			refreshHot(node, word, k);
+			return node;
+		} else if (k >= word.length()) {
+			return node;
+		}
+		int childIndex = word.charAt(k) - ALPHABET_FIRST_LETTER_ASCII;
+		int initSize = size;
+		Node<T> toDelete = delete(node.next[childIndex], word, k + 1);
+		node.setChild(childIndex, toDelete);
+		if (initSize != size) {
+			node.count--;
+		}
+		if (toDelete == null && node.value == null && isLeaf(node)) {
+			releaseNode(node);
+			return null;
+		}
+		if (initSize != size) {
+			refreshHot(node, word, k);
+		}
+		return node;
+	}
+
+	/**
+	 * Refills the shortest keys list of the node if it contains the deleted
+	 * key. Lists are refreshed bottom-up along the key path, so the list is
+	 * merged from the already updated lists of the descendants; only the
+	 * nodes of the deepest listed level, whose descendants keep no lists,
+	 * search for the shortest keys by the bounded breadth-first traversal.
+	 * 
+	 * @param node
+	 *            - node on the path of the deleted key.
+	 * @param word
+	 *            - deleted key.
+	 * @param k
+	 *            - length of the node prefix.
+	 */
+	private void refreshHot(Node<T> node, String word, int k) {
+		String[] hot = node.hot;
+		if (hot == null || Arrays.binarySearch(hot, word, RWayTrie::compareShortest) < 0) {
+			return;
+		}
+		String prefix = word.substring(0, k);
+		node.hot = (k < hotDepth) ? mergeHot(node, prefix) : shortest(node, prefix, hotSize);
+	}
+
+	/**
+	 * Returns the shortest keys list of the node merged from the key of the
+	 * node and the shortest keys lists of its descendants.
+	 * 
+	 * @param node
+	 *            - node, whose descendants keep the shortest keys lists.
+	 * @param prefix
+	 *            - key of the node.
+	 * @return shortest keys list of the node.
+	 */
+	private String[] mergeHot(Node<T> node, String prefix) {
+		List<String> merged = new ArrayList<>();
+		for (int mask = node.mask; mask != 0; mask &= mask - 1) {
+			Node<T> child = node.next[Integer.numberOfTrailingZeros(mask)];
+			if (child == null) {
+				continue;
+			}
+			String[] childHot = child.hot;
+			if (childHot == null) {
+				return shortest(node, prefix, hotSize);
+			}
+			merged.addAll(Arrays.asList(childHot));
+		}
+		merged.sort(RWayTrie::compareShortest);
+		if (node.value != null) {
+			merged.add(0, prefix);
+		}
+		int size = Math.min(merged.size(), hotSize);
+		return merged.subList(0, size).toArray(new String[size]);
+	}
+
+	/**
+	 * Checks if the passing node is a leaf in the string tree (i.e. if the
+	 * passing node has no non-null descendants).
+	 * 
+	 * @param node
+	 *            - node to be checked
+	 * @return Boolean value indicating if the passing node is a leaf.
+	 */
+	private boolean isLeaf(Node<T> node) {
+		return node.mask == 0;
+	}
+
+	/**
+	 * Records that the specified key was selected by the user, increasing the
+	 * learned selection frequency of the key. Frequency is incremented
+	 * atomically under the shared frequency lock and saturates at
+	 * Integer.MAX_VALUE; the frequency bounds of the nodes on the key path are
+	 * raised to it afterwards.
+	 * 
+	 * @param word
+	 *            - selected key.
+	 * @return true if the selection was recorded, false if the key is absent.
+	 */
+	public boolean recordSelection(String word) {
+		if (!isTermValid(word)) {
+			return false;
+		}
+		frequencyLock.readLock().lock();
+		try {
+			return recordSelection(root, word);
+		} finally {
+			frequencyLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Repeats the functionality of public recordSelection() method for the
+	 * node graph with the specified root node.
+	 */
+	private boolean recordSelection(Node<T> root, String word) {
+		List<Node<T>> path = new ArrayList<>(word.length() + 1);
+		Node<T> node = root;
+		path.add(node);
+		for (int k = 0; k < word.length() && node != null; k++) {
+			node = node.next[word.charAt(k) - ALPHABET_FIRST_LETTER_ASCII];
+			path.add(node);
+		}
+		if (node == null || node.value == null) {
+			return false;
+		}
+		int frequency = FREQUENCY.updateAndGet(node, f -> (f == Integer.MAX_VALUE) ? f : f + 1);
+		for (Node<T> pathNode : path) {
+			if (pathNode.maxFrequency < frequency) {
+				MAX_FREQUENCY.accumulateAndGet(pathNode, frequency, Math::max);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the learned selection frequency of the specified key.
+	 * 
+	 * @param word
+	 *            - key whose frequency is to be returned.
+	 * @return selection frequency of the key, zero if the key is absent.
+	 */
+	public int frequency(String word) {
+		Node<T> node = getKeyNode(word);
+		return (node == null) ? 0 : node.frequency;
+	}
+
+	/**
+	 * Halves the learned selection frequencies of all the keys and the
+	 * frequency bounds of the nodes. Nodes are updated atomically one by one,
+	 * so the selections recorded concurrently with the sweep are not lost. A
+	 * node is halved before its descendants, so its bound is never below the
+	 * frequencies of its keys once they are halved too.
+	 */
+	public void decayFrequencies() {
+		frequencyLock.readLock().lock();
+		try {
+			decayFrequencies(root);
+		} finally {
+			frequencyLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Repeats the functionality of public decayFrequencies() method for the
+	 * node graph with the specified root node.
+	 */
+	private void decayFrequencies(Node<T> root) {
+		Deque<Node<T>> nodeStack = new ArrayDeque<>();
+		nodeStack.push(root);
+		while (!nodeStack.isEmpty()) {
+			Node<T> node = nodeStack.pop();
+			if (node.maxFrequency != 0) {
+				MAX_FREQUENCY.getAndUpdate(node, frequency -> frequency >> 1);
+			}
+			if (node.frequency != 0) {
+				FREQUENCY.getAndUpdate(node, frequency -> frequency >> 1);
+			}
+			for (int mask = node.mask; mask != 0; mask &= mask - 1) {
+				Node<T> child = node.next[Integer.numberOfTrailingZeros(mask)];
+				if (child != null) {
+					nodeStack.push(child);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the node of the specified key, or null if the key is invalid or
+	 * absent.
+	 * 
+	 * @param word
+	 *            - key to search for.
+	 * @return node with the value mapped to the key, or null.
+	 */
+	private Node<T> getKeyNode(String word) {
+		if (!isTermValid(word)) {
+			return null;
+		}
+		Node<T> node = get(root, word, 0);
+		return (node == null || node.value == null) ? null : node;
+	}
+
+	/**
+	 * Returns the value to which the specified string key is mapped, or null if
+	 * this map contains no mapping for the key.
+	 * 
+	 * @param key
+	 *            - the key whose associated value is to be returned
+	 * @return the value to which the specified key is mapped, or null if this
+	 *         map contains no mapping for the key
+	 */
+	public T get(String key) {
+		Node<T> found = get(root, key, 0);
+		return (found == null) ? null : found.value;
+	}
+
+	/**
+	 * Searches recursively for the node associated with passing string key
+	 * value in the string tree ('trie') with passing root node.
+	 * 
+	 * @param node
+	 *            - root node of the string tree to search in.
+	 * @param key
+	 *            - string key to search for.
+	 * @param k
+	 *            - current string key length
+	 * @return String tree node, to which passing key value corresponds, or null
+	 *         if the key association is absent.
+	 */
+	private Node<T> get(Node<T> node, String key, int k) {
+		if (node == null) {
+			return null;
+		}
+		if (key.length() == k) {
+			return node;
+		}
+		int childIndex = key.charAt(k) - ALPHABET_FIRST_LETTER_ASCII;
+		return get(node.next[childIndex], key, k + 1);
+	}
+
+	/**
+	 * Returns an Iterable view of the string keys contained in this trie.
+	 * 
+	 * @return an Iterable view of the string keys contained in this trie.
+	 */
+	public Iterable<String> words() {
+		return wordsWithPrefix(EMPTY_STRING);
+	}
+
+	/**
+	 * Returns an Iterable view of the string keys with a specific prefix
+	 * contained in this trie. Keys are sorted by length, keys of the same
+	 * length are sorted lexicographically.
+	 * 
+	 * @param pref
+	 *            - prefix of the string values should contained in returned
+	 *            Iterable object.
+	 * @return an Iterable view of the string keys with a specific prefix
+	 *         contained in this trie.
+	 */
+	public Iterable<String> wordsWithPrefix(String pref) {
+		return query(new TrieQuery(pref, TrieQuery.Order.LENGTH)).getWords();
+	}
+
+	/**
+	 * Rebuilds the node graph of this trie in breadth-first order and replaces
+	 * the current one by it. Nodes of the rebuilt graph are allocated level by
+	 * level, so the nodes visited one after another by the prefix descent and
+	 * by the breadth-first traversal are placed close to each other in the
+	 * heap. Node pool is emptied, as the pooled nodes are scattered across the
+	 * heap. Selections wait until the compaction is complete.
+	 */
+	public synchronized void compact() {
+		frequencyLock.writeLock().lock();
+		try {
+			root = copyBreadthFirst(root);
+		} finally {
+			frequencyLock.writeLock().unlock();
+		}
+		if (nodePool != null) {
+			nodePool.clear();
+		}
+	}
+
+	/**
+	 * Rebuilds the node graph of this trie in breadth-first order by the
+	 * specified executor and replaces the current one by it (see compact()).
+	 * Copying does not block the reader and the writer threads; if the trie
+	 * was modified during the copying, the rebuilt graph is discarded and the
+	 * current one remains. Selections and the decay made during the copying
+	 * are carried over to the rebuilt graph when it replaces the current one.
+	 * Background compaction is refused while node
+	 * pooling is on, as the copying thread may read the recycled nodes.
+	 * 
+	 * @param executor
+	 *            - executor the rebuilding is performed by.
+	 * @return future completed with true if the rebuilt graph replaced the
+	 *         current one, or with false if it was discarded.
+	 * @throws IllegalStateException
+	 *             if node pooling is switched on.
+	 */
+	public CompletableFuture<Boolean> compactAsync(Executor executor) {
+		final Node<T> source;
+		final int expectedModCount;
+		synchronized (this) {
+			if (nodePool != null) {
+				throw new IllegalStateException("Background compaction with node pooling on");
+			}
+			source = root;
+			expectedModCount = modCount;
+		}
+		return CompletableFuture.supplyAsync(() -> {
+			Node<T> copy = copyBreadthFirst(source);
+			synchronized (this) {
+				if (expectedModCount != modCount || source != root) {
+					return false;
+				}
+				frequencyLock.writeLock().lock();
+				try {
+					copyFrequencies(source, copy);
+					root = copy;
+				} finally {
+					frequencyLock.writeLock().unlock();
+				}
+				if (nodePool != null) {
+					nodePool.clear();
+				}
+				return true;
+			}
+		}, executor);
+	}
+
+	/**
+	 * Creates a copy of the string tree ('trie') with the specified root node.
+	 * Nodes of the copy are created in breadth-first order.
+	 * 
+	 * @param source
+	 *            - root node of the string tree to be copied.
+	 * @return root node of the copy.
+	 */
+	private Node<T> copyBreadthFirst(Node<T> source) {
+		Node<T> copy = new Node<>();
+		copy.copyFrom(source);
+		Queue<Node<T>> sourceQ = new ArrayDeque<>();
+		Queue<Node<T>> copyQ = new ArrayDeque<>();
+		sourceQ.offer(source);
+		copyQ.offer(copy);
+		while (!sourceQ.isEmpty()) {
+			Node<T> curSource = sourceQ.poll();
+			Node<T> curCopy = copyQ.poll();
+			for (int mask = curSource.mask; mask != 0; mask &= mask - 1) {
+				int i = Integer.numberOfTrailingZeros(mask);
+				Node<T> child = curSource.next[i];
+				if (child == null) {
+					continue;
+				}
+				Node<T> childCopy = new Node<>();
+				childCopy.copyFrom(child);
+				curCopy.setChild(i, childCopy);
+				sourceQ.offer(child);
+				copyQ.offer(childCopy);
+			}
+		}
+		return copy;
+	}
+
+	/**
+	 * Copies the selection frequencies and the frequency bounds of the string
+	 * tree with the specified root node to its structurally equal copy.
+	 * 
+	 * @param source
+	 *            - root node of the copied string tree.
+	 * @param copy
+	 *            - root node of the copy.
+	 */
+	private void copyFrequencies(Node<T> source, Node<T> copy) {
+		Deque<Node<T>> sourceStack = new ArrayDeque<>();
+		Deque<Node<T>> copyStack = new ArrayDeque<>();
+		sourceStack.push(source);
+		copyStack.push(copy);
+		while (!sourceStack.isEmpty()) {
+			Node<T> curSource = sourceStack.pop();
+			Node<T> curCopy = copyStack.pop();
+			curCopy.frequency = curSource.frequency;
+			curCopy.maxFrequency = curSource.maxFrequency;
+			for (int mask = curSource.mask; mask != 0; mask &= mask - 1) {
+				int i = Integer.numberOfTrailingZeros(mask);
+				sourceStack.push(curSource.next[i]);
+				copyStack.push(curCopy.next[i]);
+			}
+		}
+	}
+
+	/**
+	 * Creates read-only copy of this trie, whose nodes are laid out in
+	 * breadth-first order in contiguous arrays (see FrozenTrie).
+	 * 
+	 * @return read-only copy of this trie.
+	 */
+	public FrozenTrie<T> freeze() {
+		List<Node<T>> nodes = new ArrayList<>();
+		List<Integer> masks = new ArrayList<>();
+		nodes.add(root);
+		for (int i = 0; i < nodes.size(); i++) {
+			// Mask of the descendants actually collected, so the layout stays
+			// consistent with the concurrent writers
+			int collected = 0;
+			for (int mask = nodes.get(i).mask; mask != 0; mask &= mask - 1) {
+				int index = Integer.numberOfTrailingZeros(mask);
+				Node<T> child = nodes.get(i).next[index];
+				if (child != null) {
+					nodes.add(child);
+					collected |= 1 << index;
+				}
+			}
+			masks.add(collected);
+		}
+		int[] layout = new int[nodes.size() * FrozenTrie.NODE_LENGTH];
+		Object[] values = new Object[nodes.size()];
+		int nextFree = 1;
+		for (int i = 0; i < nodes.size(); i++) {
+			Node<T> node = nodes.get(i);
+			int mask = masks.get(i);
+			layout[i * FrozenTrie.NODE_LENGTH] = mask;
+			layout[i * FrozenTrie.NODE_LENGTH + 1] = nextFree;
+			values[i] = node.value;
+			nextFree += Integer.bitCount(mask);
+		}
+		return new FrozenTrie<>(layout, values, size);
+	}
+
+	/**
+	 * Returns number of the string keys with a specific prefix contained in
+	 * this trie. Number is read from the prefix node, so the time is
+	 * proportional to the prefix length.
+	 * 
+	 * @param pref
+	 *            - prefix of the string keys to be counted.
+	 * @return number of the string keys with a specific prefix.
+	 */
+	public int countWithPrefix(String pref) {
+		return query(new TrieQuery(pref, TrieQuery.Order.COUNT)).getCount();
+	}
+
+	/**
+	 * Returns the page of the lexicographically sorted string keys with a
+	 * specific prefix contained in this trie. Subtrees preceding the page are
+	 * skipped as a whole by their key counts, so the time is proportional to
+	 * the prefix length plus the page size.
+	 * 
+	 * @param pref
+	 *            - prefix of the string values should contained in returned
+	 *            Iterable object.
+	 * @param offset
+	 *            - number of the keys preceding the page.
+	 * @param limit
+	 *            - maximal number of the keys in the page.
+	 * @return an Iterable view of the page of the string keys with a specific
+	 *         prefix.
+	 */
+	public Iterable<String> wordsWithPrefix(String pref, int offset, int limit) {
+		if (offset < 0 || limit <= 0) {
+			return new ArrayList<>();
+		}
+		TrieQuery query = new TrieQuery(pref, TrieQuery.Order.LEXICOGRAPHIC);
+		query.setOffset(offset);
+		query.setLimit(limit);
+		return query(query).getWords();
+	}
+
+	/**
+	 * Returns an Iterable view of the shortest string keys with a specific
+	 * prefix contained in this trie. Keys are sorted by length and
+	 * lexicographically. Materialized list of the prefix node is returned if
+	 * it is present and contains enough keys, otherwise the breadth-first
+	 * traversal stops as soon as enough keys are found.
+	 * 
+	 * @param pref
+	 *            - prefix of the string values should contained in returned
+	 *            Iterable object.
+	 * @param limit
+	 *            - maximal number of the keys.
+	 * @return an Iterable view of the shortest string keys with a specific
+	 *         prefix.
+	 */
+	public Iterable<String> shortestWithPrefix(String pref, int limit) {
+		if (limit <= 0) {
+			return new ArrayList<>();
+		}
+		TrieQuery query = new TrieQuery(pref, TrieQuery.Order.LENGTH);
+		query.setLimit(limit);
+		return query(query).getWords();
+	}
+
+	/**
+	 * Returns the result of the specified query for the string keys with a
+	 * specific prefix. Traversal is chosen by the query order, limits and the
+	 * key counts of the nodes:
+	 * <ul>
+	 * <li>count query reads the key count of the prefix node and walks only
+	 * the levels shorter than the minimal key length to subtract the short
+	 * keys;</li>
+	 * <li>lexicographic query performs depth-first traversal with an explicit
+	 * stack, skipping the subtrees preceding the offset by their key
+	 * counts;</li>
+	 * <li>length ordered query is answered by the materialized shortest keys
+	 * list of the prefix node if the list is enough, otherwise it performs
+	 * breadth-first traversal level by level, which stops as soon as the
+	 * limits are reached;</li>
+	 * <li>frequency ordered query performs best-first traversal, which expands
+	 * the subtrees in the order of their frequency bounds and stops as soon as
+	 * the limits are reached.</li>
+	 * </ul>
+	 * Every traversal counts the visited nodes against the query budget and
+	 * stops when it runs out, returning the keys found so far as a truncated
+	 * result; the materialized shortest keys lists are read without
+	 * traversal.
+	 * 
+	 * @param query
+	 *            - query to be performed.
+	 * @return result of the query.
+	 */
+	public QueryResult query(TrieQuery query) {
+		TrieQuery.Collector collector = new TrieQuery.Collector(query);
+		String pref = query.getPrefix();
+		if (!isTermValid(pref)) {
+			return collector.result();
+		}
+		Node<T> node = get(root, pref, 0);
+		if (node == null) {
+			return collector.result();
+		}
+		switch (query.getOrder()) {
+		case COUNT:
+			countWalk(node, pref.length(), collector);
+			break;
+		case LEXICOGRAPHIC:
+			depthFirst(node, pref, collector);
+			break;
+		case FREQUENCY:
+			bestFirst(node, pref, collector);
+			break;
+		default:
+			if (!fromHotList(node, collector)) {
+				collector = new TrieQuery.Collector(query);
+				breadthFirst(node, pref, collector);
+			}
+		}
+		return collector.result();
+	}
+
+	/**
+	 * Counts the keys of the string tree with the specified root node, which
+	 * are not shorter than the query minimal length. Subtrees, whose roots are
+	 * deep enough, are counted by their key counts.
+	 * 
+	 * @param node
+	 *            - root node of the string tree.
+	 * @param depth
+	 *            - length of the root node key.
+	 * @param collector
+	 *            - result of the count query.
+	 */
+	private void countWalk(Node<T> node, int depth, TrieQuery.Collector collector) {
+		if (!collector.visit()) {
+			return;
+		}
+		if (depth >= collector.query().getMinLength()) {
+			collector.addCount(node.count);
+			return;
+		}
+		for (int mask = node.mask; mask != 0; mask &= mask - 1) {
+			Node<T> child = node.next[Integer.numberOfTrailingZeros(mask)];
+			if (child != null) {
+				countWalk(child, depth + 1, collector);
+			}
+		}
+	}
+
+	/**
+	 * Offers the keys of the string tree with the specified root node to the
+	 * collector in lexicographic order until the result is complete.
+	 * Traversal uses an explicit stack of the pending subtrees. Subtrees,
+	 * whose roots are not shorter than the query minimal length and whose
+	 * keys are all skipped by the offset, are skipped as a whole.
+	 * 
+	 * @param node
+	 *            - root node of the string tree.
+	 * @param pref
+	 *            - key of the root node.
+	 * @param collector
+	 *            - result of the lexicographic query.
+	 */
+	private void depthFirst(Node<T> node, String pref, TrieQuery.Collector collector) {
+		int minLength = collector.query().getMinLength();
+		Deque<Node<T>> nodeStack = new ArrayDeque<>();
+		Deque<String> wordStack = new ArrayDeque<>();
+		nodeStack.push(node);
+		wordStack.push(pref);
+		while (!nodeStack.isEmpty() && !collector.isComplete() && collector.visit()) {
+			Node<T> curNode = nodeStack.pop();
+			String curWord = wordStack.pop();
+			if (curWord.length() >= minLength && collector.toSkip() >= curNode.count) {
+				collector.skip(curNode.count);
+				continue;
+			}
+			if (curNode.value != null && !collector.offer(curWord)) {
+				break;
+			}
+			for (int mask = curNode.mask; mask != 0;) {
+				int i = highestIndex(mask);
+				mask ^= 1 << i;
+				Node<T> child = curNode.next[i];
+				if (child == null) {
+					continue;
+				}
+				nodeStack.push(child);
+				wordStack.push(curWord + (char) (i + ALPHABET_FIRST_LETTER_ASCII));
+			}
+		}
+	}
+
+	/**
+	 * Offers the keys of the string tree with the specified root node to the
+	 * collector in the frequency order until the result is complete. Pending
+	 * subtrees and keys are kept in a priority queue; a subtree is expanded
+	 * only when its frequency bound reaches the head of the queue, so the
+	 * subtrees without frequent enough keys are never visited.
+	 * 
+	 * @param node
+	 *            - root node of the string tree.
+	 * @param pref
+	 *            - key of the root node.
+	 * @param collector
+	 *            - result of the frequency ordered query.
+	 */
+	private void bestFirst(Node<T> node, String pref, TrieQuery.Collector collector) {
+		PriorityQueue<RankEntry<T>> queue = new PriorityQueue<>(RANK_ENTRY_ORDER);
+		queue.add(new RankEntry<>(node, pref, node.maxFrequency));
+		while (!queue.isEmpty()) {
+			RankEntry<T> entry = queue.poll();
+			Node<T> curNode = entry.node;
+			if (curNode == null) {
+				if (!collector.offer(entry.word)) {
+					return;
+				}
+				continue;
+			}
+			if (!collector.visit()) {
+				return;
+			}
+			if (curNode.value != null) {
+				queue.add(new RankEntry<>(null, entry.word, curNode.frequency));
+			}
+			for (int mask = curNode.mask; mask != 0; mask &= mask - 1) {
+				int i = Integer.numberOfTrailingZeros(mask);
+				Node<T> child = curNode.next[i];
+				if (child == null) {
+					continue;
+				}
+				queue.add(new RankEntry<>(child, entry.word + (char) (i + ALPHABET_FIRST_LETTER_ASCII),
+						child.maxFrequency));
+			}
+		}
+	}
+
+	/**
+	 * Offers the keys of the string tree with the specified root node to the
+	 * collector sorted by length and lexicographically until the result is
+	 * complete. Traversal proceeds level by level, so it stops before visiting
+	 * the level exceeding the length-sets limit.
+	 * 
+	 * @param node
+	 *            - root node of the string tree.
+	 * @param pref
+	 *            - key of the root node.
+	 * @param collector
+	 *            - result of the length ordered query.
+	 */
+	private void breadthFirst(Node<T> node, String pref, TrieQuery.Collector collector) {
+		List<Node<T>> level = new ArrayList<>();
+		List<String> words = new ArrayList<>();
+		level.add(node);
+		words.add(pref);
+		for (int length = pref.length(); !level.isEmpty() && collector.wants(length); length++) {
+			List<Node<T>> nextLevel = new ArrayList<>();
+			List<String> nextWords = new ArrayList<>();
+			for (int j = 0; j < level.size(); j++) {
+				Node<T> curNode = level.get(j);
+				String curWord = words.get(j);
+				if (!collector.visit() || (curNode.value != null && !collector.offer(curWord))) {
+					return;
+				}
+				for (int mask = curNode.mask; mask != 0; mask &= mask - 1) {
+					int i = Integer.numberOfTrailingZeros(mask);
+					Node<T> child = curNode.next[i];
+					if (child == null) {
+						continue;
+					}
+					nextLevel.add(child);
+					nextWords.add(curWord + (char) (i + ALPHABET_FIRST_LETTER_ASCII));
+				}
+			}
+			level = nextLevel;
+			words = nextWords;
+		}
+	}
+
+	/**
+	 * Offers the materialized shortest keys list of the node to the collector.
+	 * 
+	 * @param node
+	 *            - prefix node of the length ordered query.
+	 * @param collector
+	 *            - result of the length ordered query.
+	 * @return true if the list is enough for the result, false if the
+	 *         traversal is required.
+	 */
+	private boolean fromHotList(Node<T> node, TrieQuery.Collector collector) {
+		String[] hot = node.hot;
+		if (hot == null) {
+			return false;
+		}
+		for (String word : hot) {
+			if (!collector.offer(word)) {
+				return true;
+			}
+		}
+		return hot.length < hotSize;
+	}
+
+	/**
+	 * Returns a sequential Stream of the string keys with a specific prefix
+	 * contained in this trie. Keys are streamed lazily in lexicographic order.
+	 * Stream splits by subtrees, so the parallel() stream processes subtrees
+	 * on different cores without building the list of all the keys.
+	 * 
+	 * @param pref
+	 *            - prefix of the string values should contained in returned
+	 *            Stream.
+	 * @return a Stream of the string keys with a specific prefix contained in
+	 *         this trie.
+	 */
+	public Stream<String> stream(String pref) {
+		if (!isTermValid(pref)) {
+			return Stream.empty();
+		}
+		Node<T> node = get(root, pref, 0);
+		if (node == null) {
+			return Stream.empty();
+		}
+		Deque<NodeSpliterator.Frame<T>> frames = new ArrayDeque<>();
+		frames.offer(new NodeSpliterator.Frame<>(node, pref));
+		return StreamSupport.stream(new NodeSpliterator<>(frames), false);
+	}
+
+	/**
+	 * Returns the estimated heap size of the nodes of this trie. Values and
+	 * the shortest keys lists are not included, as they may be shared. Nodes
+	 * are counted by a traversal, so the call takes time proportional to the
+	 * trie size.
+	 * 
+	 * @return estimated number of the heap bytes of the nodes.
+	 */
+	public long estimatedBytes() {
+		long nodes = 0;
+		Deque<Node<T>> nodeStack = new ArrayDeque<>();
+		nodeStack.push(root);
+		while (!nodeStack.isEmpty()) {
+			Node<T> node = nodeStack.pop();
+			nodes++;
+			for (int mask = node.mask; mask != 0; mask &= mask - 1) {
+				Node<T> child = node.next[Integer.numberOfTrailingZeros(mask)];
+				if (child != null) {
+					nodeStack.push(child);
+				}
+			}
+		}
+		return nodes * NODE_BYTES;
+	}
+
+	/**
+	 * Returns the number of key-value mappings in this trie.
+	 * 
+	 * @return the number of key-value mappings in this trie.
+	 */
+	public int size() {
+		return size;
+	}
+}
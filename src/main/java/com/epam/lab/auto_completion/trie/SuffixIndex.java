@@ -0,0 +1,186 @@
+package com.epam.lab.auto_completion.trie;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Suffix array over the words of a dictionary answering which words contain a
+ * specific fragment. The index keeps an array of the words and stores every
+ * suffix as a long packing the index of its word and the offset of the suffix
+ * in the word, so the index takes the words themselves plus 8 bytes per
+ * indexed suffix. Suffixes are sorted lexicographically, hence the
+ * suffixes starting with the fragment form a contiguous range, which is found
+ * by two binary searches comparing at most fragment length chars each. Words
+ * are numbered in the length and lexicographic order, so the words of the
+ * range are sorted by sorting their numbers. Suffixes shorter than the minimal
+ * fragment length are not indexed. Index is immutable; changes of the
+ * dictionary made after its build should be merged with its results until it
+ * is rebuilt.
+ */
+public class SuffixIndex {
+
+	/**
+	 * Words of the dictionary sorted by length and lexicographically.
+	 */
+	private final String[] words;
+	/**
+	 * Sorted suffixes: index of the word in the high half and offset of the
+	 * suffix in the low half.
+	 */
+	private final long[] suffixes;
+	/**
+	 * Minimal length of the indexed suffixes and of the searched fragments.
+	 */
+	private final int minFragmentLength;
+
+	/**
+	 * Builds the index of the specified words.
+	 * 
+	 * @param words
+	 *            - distinct words of the dictionary.
+	 * @param minFragmentLength
+	 *            - minimal length of the fragments to be searched, positive.
+	 */
+	public SuffixIndex(Iterable<String> words, int minFragmentLength) {
+		super();
+		if (minFragmentLength <= 0) {
+			throw new IllegalArgumentException("Non-positive fragment length: " + minFragmentLength);
+		}
+		this.minFragmentLength = minFragmentLength;
+		List<String> wordList = new ArrayList<>();
+		words.forEach(wordList::add);
+		this.words = wordList.toArray(new String[wordList.size()]);
+		Arrays.sort(this.words, RWayTrie::compareShortest);
+		int count = 0;
+		for (String word : this.words) {
+			count += Math.max(0, word.length() - minFragmentLength + 1);
+		}
+		long[] unsorted = new long[count];
+		int next = 0;
+		for (int i = 0; i < this.words.length; i++) {
+			for (int offset = 0; offset + minFragmentLength <= this.words[i].length(); offset++) {
+				unsorted[next++] = ((long) i << Integer.SIZE) | offset;
+			}
+		}
+		this.suffixes = unsorted.clone();
+		mergeSort(unsorted, this.suffixes, 0, count);
+	}
+
+	/**
+	 * Returns the words containing the specified fragment sorted by length
+	 * and lexicographically. Fragments shorter than the minimal fragment
+	 * length match no words.
+	 * 
+	 * @param fragment
+	 *            - fragment the words should contain.
+	 * @return sorted words containing the fragment.
+	 */
+	public List<String> wordsContaining(String fragment) {
+		List<String> result = new ArrayList<>();
+		if (fragment == null || fragment.length() < minFragmentLength) {
+			return result;
+		}
+		int from = lowerBound(fragment, false);
+		int to = lowerBound(fragment, true);
+		int[] matches = new int[to - from];
+		for (int i = from; i < to; i++) {
+			matches[i - from] = (int) (suffixes[i] >>> Integer.SIZE);
+		}
+		Arrays.sort(matches);
+		for (int i = 0; i < matches.length; i++) {
+			// Word containing the fragment several times is reported once
+			if (i == 0 || matches[i] != matches[i - 1]) {
+				result.add(words[matches[i]]);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns number of the indexed words.
+	 * 
+	 * @return number of the words.
+	 */
+	public int size() {
+		return words.length;
+	}
+
+	/**
+	 * Returns index of the first suffix not preceding the fragment, or, if
+	 * past is set, of the first suffix following all the suffixes starting
+	 * with the fragment.
+	 */
+	private int lowerBound(String fragment, boolean past) {
+		int low = 0;
+		int high = suffixes.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			int diff = compareToFragment(suffixes[mid], fragment);
+			if (diff < 0 || (past && diff == 0)) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Compares the suffix with the fragment, regarding the suffix starting
+	 * with the fragment as equal to it.
+	 */
+	private int compareToFragment(long suffix, String fragment) {
+		String word = words[(int) (suffix >>> Integer.SIZE)];
+		int offset = (int) suffix;
+		int length = Math.min(word.length() - offset, fragment.length());
+		for (int i = 0; i < length; i++) {
+			int diff = word.charAt(offset + i) - fragment.charAt(i);
+			if (diff != 0) {
+				return diff;
+			}
+		}
+		return (length == fragment.length()) ? 0 : -1;
+	}
+
+	/**
+	 * Compares two suffixes lexicographically.
+	 */
+	private int compareSuffixes(long first, long second) {
+		String firstWord = words[(int) (first >>> Integer.SIZE)];
+		String secondWord = words[(int) (second >>> Integer.SIZE)];
+		int firstOffset = (int) first;
+		int secondOffset = (int) second;
+		int firstLength = firstWord.length() - firstOffset;
+		int secondLength = secondWord.length() - secondOffset;
+		int length = Math.min(firstLength, secondLength);
+		for (int i = 0; i < length; i++) {
+			int diff = firstWord.charAt(firstOffset + i) - secondWord.charAt(secondOffset + i);
+			if (diff != 0) {
+				return diff;
+			}
+		}
+		return firstLength - secondLength;
+	}
+
+	/**
+	 * Sorts the range of the suffixes from the source array into the target
+	 * array. Both arrays hold the same suffixes on entry; the source is used
+	 * as a buffer.
+	 */
+	private void mergeSort(long[] source, long[] target, int from, int to) {
+		if (to - from < 2) {
+			return;
+		}
+		int mid = (from + to) >>> 1;
+		mergeSort(target, source, from, mid);
+		mergeSort(target, source, mid, to);
+		for (int i = from, left = from, right = mid; i < to; i++) {
+			if (right >= to || (left < mid && compareSuffixes(source[left], source[right]) <= 0)) {
+				target[i] = source[left++];
+			} else {
+				target[i] = source[right++];
+			}
+		}
+	}
+}
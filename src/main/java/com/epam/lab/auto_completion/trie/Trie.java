@@ -1,111 +1,289 @@
-package com.epam.lab.auto_completion.trie;
-
-/**
- * An object that maps keys to values. An object of interface cannot contain
- * duplicate keys; each key can map to at most one value. String values serve as
- * keys. Interface implementation infers that implementor class stores data in
- * string tree, so called 'trie', where key is not stored in tree node, but path
- * from the tree root to the tree node determines node key. Interface provides
- * methods for adding, deleting mappings, checking of mapping presence,
- * returning of mappings quantity as well as of all the contained string keys
- * and of all the contained string keys with specified prefix.
- * 
- * @param <T>
- *            - the type of mapped values
- * @author Serhii Terletskyi
- * @version 1.0 03/18/2016
- */
-public interface Trie<T> {
-
-	/**
-	 * Wrapper class that encapsulates key and value. Class instance is passed
-	 * as a parameter to the Trie.add() method.
-	 * 
-	 * @param <T>
-	 *            - the type of encapsulating values
-	 */
-	public static class Tuple<T> {
-		private String term;
-		private T value;
-
-		public Tuple(String term, T value) {
-			super();
-			this.term = term;
-			this.value = value;
-		}
-
-		public String getTerm() {
-			return term;
-		}
-
-		public T getValue() {
-			return value;
-		}
-
-		public void setTerm(String term) {
-			this.term = term;
-		}
-
-		public void setValue(T value) {
-			this.value = value;
-		}
-	}
-
-	/**
-	 * Associates the specified value with the specified key in this object. If
-	 * the object previously contained a mapping for the key, the old value is
-	 * replaced by the specified value. Specified value and key are encapsulated
-	 * in Tuple instance.
-	 * 
-	 * @param tuple
-	 *            - object encapsulating key with which the specified value is
-	 *            to be associated and value to be associated with the specified
-	 *            key.
-	 */
-	public void add(Tuple<T> tuple);
-
-	/**
-	 * Returns true if this trie contains a mapping for the specified word,
-	 * which serves as a key.
-	 * 
-	 * @param word
-	 *            - key whose presence in this trie is to be tested
-	 */
-	public boolean contains(String word);
-
-	/**
-	 * Removes the mapping for a key from this trie if it is present. Returns
-	 * whether the key to delete was found in this trie.
-	 * 
-	 * @param word
-	 *            - key whose mapping is to be removed from the trie
-	 * @return true if key to delete was found in the trie.
-	 */
-	public boolean delete(String word);
-
-	/**
-	 * Returns an Iterable view of the string keys contained in this trie.
-	 * 
-	 * @return an Iterable view of the string keys contained in this trie.
-	 */
-	public Iterable<String> words();
-
-	/**
-	 * Returns an Iterable view of the string keys with a specific prefix
-	 * contained in this trie.
-	 * 
-	 * @param pref
-	 *            - prefix of the string values should contained in returned
-	 *            Iterable object.
-	 * @return an Iterable view of the string keys with a specific prefix
-	 *         contained in this trie.
-	 */
-	public Iterable<String> wordsWithPrefix(String pref);
-
-	/**
-	 * Returns the number of key-value mappings in this trie.
-	 * 
-	 * @return the number of key-value mappings in this trie.
-	 */
-	public int size();
-}
+package com.epam.lab.auto_completion.trie;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * An object that maps keys to values. An object of interface cannot contain
+ * duplicate keys; each key can map to at most one value. String values serve as
+ * keys. Interface implementation infers that implementor class stores data in
+ * string tree, so called 'trie', where key is not stored in tree node, but path
+ * from the tree root to the tree node determines node key. Interface provides
+ * methods for adding, deleting mappings, checking of mapping presence,
+ * returning of mappings quantity as well as of all the contained string keys
+ * and of all the contained string keys with specified prefix, either as an
+ * Iterable view or as a Stream. Implementations may also learn how often the
+ * keys are selected by the users and rank the keys by these frequencies.
+ * 
+ * @param <T>
+ *            - the type of mapped values
+ * @author Serhii Terletskyi
+ * @version 1.0 03/18/2016
+ */
+public interface Trie<T> {
+
+	/**
+	 * Wrapper class that encapsulates key and value. Class instance is passed
+	 * as a parameter to the Trie.add() method.
+	 * 
+	 * @param <T>
+	 *            - the type of encapsulating values
+	 */
+	public static class Tuple<T> {
+		private String term;
+		private T value;
+
+		public Tuple(String term, T value) {
+			super();
+			this.term = term;
+			this.value = value;
+		}
+
+		public String getTerm() {
+			return term;
+		}
+
+		public T getValue() {
+			return value;
+		}
+
+		public void setTerm(String term) {
+			this.term = term;
+		}
+
+		public void setValue(T value) {
+			this.value = value;
+		}
+	}
+
+	/**
+	 * Associates the specified value with the specified key in this object. If
+	 * the object previously contained a mapping for the key, the old value is
+	 * replaced by the specified value. Specified value and key are encapsulated
+	 * in Tuple instance.
+	 * 
+	 * @param tuple
+	 *            - object encapsulating key with which the specified value is
+	 *            to be associated and value to be associated with the specified
+	 *            key.
+	 */
+	public void add(Tuple<T> tuple);
+
+	/**
+	 * Returns true if this trie contains a mapping for the specified word,
+	 * which serves as a key.
+	 * 
+	 * @param word
+	 *            - key whose presence in this trie is to be tested
+	 */
+	public boolean contains(String word);
+
+	/**
+	 * Removes the mapping for a key from this trie if it is present. Returns
+	 * whether the key to delete was found in this trie.
+	 * 
+	 * @param word
+	 *            - key whose mapping is to be removed from the trie
+	 * @return true if key to delete was found in the trie.
+	 */
+	public boolean delete(String word);
+
+	/**
+	 * Returns an Iterable view of the string keys contained in this trie.
+	 * 
+	 * @return an Iterable view of the string keys contained in this trie.
+	 */
+	public Iterable<String> words();
+
+	/**
+	 * Returns an Iterable view of the string keys with a specific prefix
+	 * contained in this trie.
+	 * 
+	 * @param pref
+	 *            - prefix of the string values should contained in returned
+	 *            Iterable object.
+	 * @return an Iterable view of the string keys with a specific prefix
+	 *         contained in this trie.
+	 */
+	public Iterable<String> wordsWithPrefix(String pref);
+
+	/**
+	 * Returns number of the string keys with a specific prefix contained in
+	 * this trie. Default implementation counts the keys of the
+	 * wordsWithPrefix() view.
+	 * 
+	 * @param pref
+	 *            - prefix of the string keys to be counted.
+	 * @return number of the string keys with a specific prefix.
+	 */
+	public default int countWithPrefix(String pref) {
+		int count = 0;
+		for (Iterator<String> it = wordsWithPrefix(pref).iterator(); it.hasNext(); it.next()) {
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the page of the lexicographically sorted string keys with a
+	 * specific prefix contained in this trie.
+	 * 
+	 * @param pref
+	 *            - prefix of the string values should contained in returned
+	 *            Iterable object.
+	 * @param offset
+	 *            - number of the keys preceding the page.
+	 * @param limit
+	 *            - maximal number of the keys in the page.
+	 * @return an Iterable view of the page of the string keys with a specific
+	 *         prefix.
+	 */
+	public default Iterable<String> wordsWithPrefix(String pref, int offset, int limit) {
+		if (offset < 0 || limit <= 0) {
+			return new ArrayList<>();
+		}
+		return stream(pref).sorted().skip(offset).limit(limit).collect(Collectors.toList());
+	}
+
+	/**
+	 * Returns an Iterable view of the shortest string keys with a specific
+	 * prefix contained in this trie. Keys are sorted by length and
+	 * lexicographically. Default implementation takes the first keys of the
+	 * wordsWithPrefix() view, which is expected to be sorted the same way.
+	 * 
+	 * @param pref
+	 *            - prefix of the string values should contained in returned
+	 *            Iterable object.
+	 * @param limit
+	 *            - maximal number of the keys.
+	 * @return an Iterable view of the shortest string keys with a specific
+	 *         prefix.
+	 */
+	public default Iterable<String> shortestWithPrefix(String pref, int limit) {
+		List<String> result = new ArrayList<>();
+		for (Iterator<String> it = wordsWithPrefix(pref).iterator(); it.hasNext() && result.size() < limit;) {
+			result.add(it.next());
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the result of the specified query for the string keys with a
+	 * specific prefix. Default implementation selects the result from the
+	 * wordsWithPrefix() view, which is expected to be length sorted, ranking
+	 * the keys by frequency() for the frequency order;
+	 * implementations may choose the traversal, which visits the least number
+	 * of the nodes for the query order and limits. Query budget, if set, is
+	 * checked during the traversal (by the default implementation, per
+	 * selected key); when it runs out, the keys found so far are returned as
+	 * a truncated result.
+	 * 
+	 * @param query
+	 *            - query to be performed.
+	 * @return result of the query.
+	 */
+	public default QueryResult query(TrieQuery query) {
+		Iterable<String> words = wordsWithPrefix(query.getPrefix());
+		if (query.getOrder() == TrieQuery.Order.FREQUENCY) {
+			List<TrieQuery.RankedKey> ranked = new ArrayList<>();
+			for (String word : words) {
+				ranked.add(new TrieQuery.RankedKey(word, frequency(word)));
+			}
+			return query.selectRanked(ranked);
+		}
+		if (query.getOrder() == TrieQuery.Order.LEXICOGRAPHIC) {
+			List<String> sorted = new ArrayList<>();
+			words.forEach(sorted::add);
+			Collections.sort(sorted);
+			words = sorted;
+		}
+		return query.select(words);
+	}
+
+	/**
+	 * Records that the specified key was selected by the user, increasing the
+	 * learned selection frequency of the key. Default implementation does not
+	 * learn frequencies.
+	 * 
+	 * @param word
+	 *            - selected key.
+	 * @return true if the selection was recorded, false if the key is absent
+	 *         or frequencies are not learned.
+	 */
+	public default boolean recordSelection(String word) {
+		return false;
+	}
+
+	/**
+	 * Returns the learned selection frequency of the specified key. Default
+	 * implementation does not learn frequencies and returns zero.
+	 * 
+	 * @param word
+	 *            - key whose frequency is to be returned.
+	 * @return selection frequency of the key, zero if the key is absent.
+	 */
+	public default int frequency(String word) {
+		return 0;
+	}
+
+	/**
+	 * Decays the learned selection frequencies of all the keys, so the recent
+	 * selections outweigh the old ones. Meant to be called periodically in
+	 * the background. Default implementation does nothing.
+	 */
+	public default void decayFrequencies() {
+	}
+
+	/**
+	 * Returns a sequential Stream of the string keys contained in this trie.
+	 * 
+	 * @return a Stream of the string keys contained in this trie.
+	 */
+	public default Stream<String> stream() {
+		return stream("");
+	}
+
+	/**
+	 * Returns a sequential Stream of the string keys with a specific prefix
+	 * contained in this trie. Default implementation streams the
+	 * wordsWithPrefix() view; implementations may stream the keys lazily and
+	 * split the stream by subtrees, so the parallel() stream scales across
+	 * cores. The trie should not be modified while the stream is consumed.
+	 * 
+	 * @param pref
+	 *            - prefix of the string values should contained in returned
+	 *            Stream.
+	 * @return a Stream of the string keys with a specific prefix contained in
+	 *         this trie.
+	 */
+	public default Stream<String> stream(String pref) {
+		return StreamSupport.stream(wordsWithPrefix(pref).spliterator(), false);
+	}
+
+	/**
+	 * Returns the number of key-value mappings in this trie.
+	 * 
+	 * @return the number of key-value mappings in this trie.
+	 */
+	public int size();
+
+	/**
+	 * Returns true if the passing string value can serve as a key of the
+	 * tries of this package, i.e. it is not null and all its chars belong to
+	 * their alphabet of 26 lowercase letters of English alphabet. Check is
+	 * made without calling a trie, so a key can be tested before it is added.
+	 * 
+	 * @param word
+	 *            - string value to be checked.
+	 * @return Boolean value indicating whether the passing string value can
+	 *         serve as a key.
+	 */
+	public static boolean isValidKey(String word) {
+		return RWayTrie.isTermValid(word);
+	}
+}
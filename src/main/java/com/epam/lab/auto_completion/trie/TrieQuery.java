@@ -0,0 +1,400 @@
+package com.epam.lab.auto_completion.trie;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Description of the query for the string keys with a specific prefix. Query
+ * specifies the order of the result keys (or that only their number is
+ * required), minimal length of the keys to be regarded, number of the first
+ * keys to be skipped, maximal number of the result keys and, for the length
+ * order, maximal number of the length-sets (keys of the same length-set have
+ * the same length) and, optionally, the budget limiting the query work. Trie
+ * implementations choose the traversal by these parameters (see
+ * Trie.query()).
+ */
+public class TrieQuery {
+
+	/**
+	 * Order of the query result keys.
+	 */
+	public enum Order {
+		/**
+		 * Keys are sorted by length, keys of the same length are sorted
+		 * lexicographically.
+		 */
+		LENGTH,
+		/**
+		 * Keys are sorted lexicographically. Length-sets limit is ignored.
+		 */
+		LEXICOGRAPHIC,
+		/**
+		 * Only the number of the keys is required. Offset and limits are
+		 * ignored.
+		 */
+		COUNT,
+		/**
+		 * Keys are sorted by the learned selection frequency in descending
+		 * order, keys of the same frequency are sorted by length and
+		 * lexicographically. Length-sets limit is ignored.
+		 */
+		FREQUENCY
+	}
+
+	/**
+	 * String key paired with the snapshot of its selection frequency, so the
+	 * frequency ordered keys are sorted consistently while the frequencies
+	 * change concurrently.
+	 */
+	static class RankedKey {
+		final String word;
+		final int frequency;
+
+		RankedKey(String word, int frequency) {
+			this.word = word;
+			this.frequency = frequency;
+		}
+	}
+
+	/**
+	 * Order of the keys of the frequency ordered result.
+	 */
+	private static final Comparator<RankedKey> RANK_ORDER = Comparator
+			.comparingInt((RankedKey key) -> -key.frequency).thenComparingInt(key -> key.word.length())
+			.thenComparing(key -> key.word);
+
+	private final String prefix;
+	private final Order order;
+	private int minLength;
+	private int offset;
+	private int limit = Integer.MAX_VALUE;
+	private int lengthSets = Integer.MAX_VALUE;
+	private QueryBudget budget;
+
+	public TrieQuery(String prefix, Order order) {
+		super();
+		this.prefix = prefix;
+		this.order = order;
+	}
+
+	public String getPrefix() {
+		return prefix;
+	}
+
+	public Order getOrder() {
+		return order;
+	}
+
+	public int getMinLength() {
+		return minLength;
+	}
+
+	public int getOffset() {
+		return offset;
+	}
+
+	public int getLimit() {
+		return limit;
+	}
+
+	public int getLengthSets() {
+		return lengthSets;
+	}
+
+	public QueryBudget getBudget() {
+		return budget;
+	}
+
+	/**
+	 * Sets the budget limiting the work of the query. Query exceeding the
+	 * budget returns the keys found so far as a truncated result.
+	 * 
+	 * @param budget
+	 *            - budget of the query, or null for the unlimited query.
+	 */
+	public void setBudget(QueryBudget budget) {
+		this.budget = budget;
+	}
+
+	/**
+	 * Sets minimal length of the keys to be regarded. Shorter keys are not
+	 * included into the result and are not counted.
+	 * 
+	 * @param minLength
+	 *            - minimal key length.
+	 */
+	public void setMinLength(int minLength) {
+		this.minLength = Math.max(0, minLength);
+	}
+
+	/**
+	 * Sets number of the first keys to be skipped.
+	 * 
+	 * @param offset
+	 *            - number of the skipped keys, not negative.
+	 */
+	public void setOffset(int offset) {
+		if (offset < 0) {
+			throw new IllegalArgumentException("Negative offset: " + offset);
+		}
+		this.offset = offset;
+	}
+
+	/**
+	 * Sets maximal number of the result keys.
+	 * 
+	 * @param limit
+	 *            - maximal number of the keys, positive.
+	 */
+	public void setLimit(int limit) {
+		if (limit <= 0) {
+			throw new IllegalArgumentException("Non-positive limit: " + limit);
+		}
+		this.limit = limit;
+	}
+
+	/**
+	 * Sets maximal number of the length-sets of the length ordered result.
+	 * Length-sets are counted from the shortest key, including the keys
+	 * skipped by the offset.
+	 * 
+	 * @param lengthSets
+	 *            - maximal number of the length-sets, positive.
+	 */
+	public void setLengthSets(int lengthSets) {
+		if (lengthSets <= 0) {
+			throw new IllegalArgumentException("Non-positive number of length-sets: " + lengthSets);
+		}
+		this.lengthSets = lengthSets;
+	}
+
+	/**
+	 * Returns the result of this query selected from the specified keys. Keys
+	 * should be sorted in the query order (by length for the count query).
+	 * 
+	 * @param words
+	 *            - keys with the query prefix sorted in the query order.
+	 * @return result of this query.
+	 */
+	public QueryResult select(Iterable<String> words) {
+		Collector collector = new Collector(this);
+		for (String word : words) {
+			if (!collector.visit() || !collector.offer(word)) {
+				break;
+			}
+		}
+		return collector.result();
+	}
+
+	/**
+	 * Returns the result of this frequency ordered query selected from the
+	 * specified unsorted keys. Only the keys up to the offset and the limit
+	 * are kept in a bounded heap, so the keys are not sorted as a whole.
+	 * 
+	 * @param keys
+	 *            - keys with the query prefix and their frequencies.
+	 * @return result of this query.
+	 */
+	QueryResult selectRanked(Collection<RankedKey> keys) {
+		Collector collector = new Collector(this);
+		collector.offerAll(rank(keys));
+		return collector.result();
+	}
+
+	/**
+	 * Returns the keys of this frequency ordered query sorted by rank, up to
+	 * the offset and the limit.
+	 * 
+	 * @param keys
+	 *            - keys with the query prefix and their frequencies.
+	 * @return words of the top ranked keys in the rank order.
+	 */
+	List<String> rank(Collection<RankedKey> keys) {
+		long needed = (long) offset + limit;
+		PriorityQueue<RankedKey> top = new PriorityQueue<>(RANK_ORDER.reversed());
+		for (RankedKey key : keys) {
+			if (key.word.length() >= minLength) {
+				top.offer(key);
+				if (top.size() > needed) {
+					top.poll();
+				}
+			}
+		}
+		List<RankedKey> sorted = new ArrayList<>(top);
+		sorted.sort(RANK_ORDER);
+		List<String> words = new ArrayList<>(sorted.size());
+		for (RankedKey key : sorted) {
+			words.add(key.word);
+		}
+		return words;
+	}
+
+	/**
+	 * Accumulator of the query result. Traversals offer the keys in the query
+	 * order one by one until the collector reports that the result is
+	 * complete.
+	 */
+	static class Collector {
+		private final TrieQuery query;
+		private final List<String> words = new ArrayList<>();
+		private int count;
+		private int toSkip;
+		private int lengthSetsLeft;
+		private int curLength = -1;
+		private boolean complete;
+		private final QueryBudget budget;
+		private long visits;
+		private boolean truncated;
+
+		Collector(TrieQuery query) {
+			this.query = query;
+			toSkip = query.offset;
+			lengthSetsLeft = query.lengthSets;
+			budget = query.budget;
+		}
+
+		TrieQuery query() {
+			return query;
+		}
+
+		/**
+		 * Offers the next key of the query order to the result.
+		 * 
+		 * @param word
+		 *            - next key.
+		 * @return false if the result is complete and no more keys are
+		 *         required.
+		 */
+		boolean offer(String word) {
+			if (complete) {
+				return false;
+			}
+			if (word.length() < query.minLength) {
+				return true;
+			}
+			if (query.order == Order.COUNT) {
+				count++;
+				return true;
+			}
+			if (query.order == Order.LENGTH && word.length() != curLength) {
+				if (lengthSetsLeft-- == 0) {
+					complete = true;
+					return false;
+				}
+				curLength = word.length();
+			}
+			if (toSkip > 0) {
+				toSkip--;
+				return true;
+			}
+			words.add(word);
+			count++;
+			if (words.size() == query.limit) {
+				complete = true;
+			}
+			return !complete;
+		}
+
+		/**
+		 * Offers the keys in the query order until the result is complete.
+		 * Keys are not counted against the query budget, as they are found
+		 * already.
+		 * 
+		 * @param words
+		 *            - keys sorted in the query order.
+		 */
+		void offerAll(Iterable<String> words) {
+			for (String word : words) {
+				if (!offer(word)) {
+					break;
+				}
+			}
+		}
+
+		/**
+		 * Counts the visit of the next node by the traversal against the
+		 * query budget. Traversal should stop as soon as the visit is
+		 * refused; the result then is truncated, but the keys found so far
+		 * can still be offered.
+		 * 
+		 * @return false if the budget ran out.
+		 */
+		boolean visit() {
+			if (budget == null) {
+				return true;
+			}
+			if (truncated) {
+				return false;
+			}
+			visits++;
+			if (visits > budget.getMaxNodeVisits()
+					|| ((visits & (QueryBudget.CHECK_INTERVAL - 1)) == 1 && budget.isExpired())) {
+				truncated = true;
+				return false;
+			}
+			return true;
+		}
+
+		/**
+		 * Checks if the keys of the specified length can still be added to
+		 * the result, so the traversal reaching them is not in vain.
+		 * 
+		 * @param length
+		 *            - length of the keys.
+		 * @return false if no key of the specified length can be added.
+		 */
+		boolean wants(int length) {
+			if (complete) {
+				return false;
+			}
+			return query.order != Order.LENGTH || length == curLength || lengthSetsLeft > 0;
+		}
+
+		/**
+		 * Counts the specified number of the keys without offering them. Used
+		 * by the count query only.
+		 * 
+		 * @param keys
+		 *            - number of the keys.
+		 */
+		void addCount(int keys) {
+			count += keys;
+		}
+
+		/**
+		 * Returns number of the keys still to be skipped by the offset.
+		 * 
+		 * @return number of the keys to be skipped.
+		 */
+		int toSkip() {
+			return toSkip;
+		}
+
+		/**
+		 * Skips the specified number of the keys without offering them. Used
+		 * by the lexicographic traversal only, as it ignores the length-sets.
+		 * 
+		 * @param keys
+		 *            - number of the skipped keys, not greater than toSkip().
+		 */
+		void skip(int keys) {
+			toSkip -= keys;
+		}
+
+		/**
+		 * Returns whether the result is complete, so the traversal can stop.
+		 * 
+		 * @return Boolean value indicating if the result is complete.
+		 */
+		boolean isComplete() {
+			return complete;
+		}
+
+		QueryResult result() {
+			return new QueryResult(words, count, truncated);
+		}
+	}
+}
@@ -1,239 +1,502 @@
-package com.epam.lab.auto_completion;
-
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertFalse;
-import static org.junit.Assert.assertTrue;
-import static org.mockito.Matchers.anyString;
-import static org.mockito.Matchers.isA;
-import static org.mockito.Mockito.times;
-import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.verifyNoMoreInteractions;
-import static org.mockito.Mockito.when;
-import static org.mockito.MockitoAnnotations.initMocks;
-
-import java.io.File;
-import java.io.IOException;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Scanner;
-
-import org.junit.Before;
-import org.junit.BeforeClass;
-import org.junit.FixMethodOrder;
-import org.junit.Test;
-import org.junit.runners.MethodSorters;
-import org.mockito.InjectMocks;
-import org.mockito.Mock;
-import org.mockito.invocation.InvocationOnMock;
-import org.mockito.stubbing.Answer;
-
-import com.epam.lab.auto_completion.trie.RWayTrie;
-import com.epam.lab.auto_completion.trie.Trie.Tuple;
-
-@FixMethodOrder(MethodSorters.NAME_ASCENDING)
-public class PrefixMatchesTest {
-
-	private static final String DELIMITER_REGEX = "\\s(?=[a-z])";
-	private static Map<String, String> dic;
-	private static final String DIC_FILEPATH = "src/test/resources/dic.txt";
-	private static final int ITERATION_LIMIT = 50000;
-	private static final int MIN_WORD_LENGTH = 3;
-	private static final int DEFAULT_WORD_SET_LENGTH = 3;
-	private static final int MIN_PREFIX_LENGTH = 2;
-
-	private static final String SPACE = " ";
-
-	@BeforeClass
-	public static void setupDic() throws IOException {
-		Scanner scanner = new Scanner(new File(DIC_FILEPATH));
-		dic = new HashMap<>();
-		String[] wordAr;
-		try {
-			while (scanner.hasNextLine()) {
-				wordAr = scanner.nextLine().split(DELIMITER_REGEX);
-				dic.put(wordAr[1].trim(), wordAr[0].trim());
-			}
-		} finally {
-			scanner.close();
-		}
-	}
-
-	@InjectMocks
-	private PrefixMatches pm;
-
-	@Mock
-	private RWayTrie<Integer> trie;
-
-	@Before
-	public void setupTest() {
-
-		initMocks(this);
-		when(trie.contains(anyString()))
-				.thenAnswer((inv) -> ((String) inv.getArguments()[0]).length() >= MIN_WORD_LENGTH);
-		when(trie.delete(anyString()))
-				.thenAnswer((inv) -> ((String) inv.getArguments()[0]).length() >= MIN_WORD_LENGTH);
-		when(trie.size()).then(new Answer<Integer>() {
-			private int count;
-
-			@Override
-			public Integer answer(InvocationOnMock invocation) throws Throwable {
-				return (++count % 2 == 0) ? count / 2 : (count + 1) / 2;
-			}
-		});
-	}
-
-	@SuppressWarnings("unchecked")
-	@Test
-	public void test01Add_shouldSplitAndAddAllWordsThatSatisfyMinLength() {
-		StringBuilder sb = new StringBuilder();
-		int count = 0;
-		for (String str : dic.keySet()) {
-			if (str.length() < MIN_WORD_LENGTH) {
-				continue;
-			}
-			sb.append(str).append(SPACE);
-			count++;
-		}
-		assertEquals(count, pm.add(sb.toString()));
-		verify(trie, times(count)).add(isA(Tuple.class));
-		verifyNoMoreInteractions(trie);
-	}
-
-	@Test
-	public void test02Contains_shouldAlwaysCallAndReturnTrieMethod() {
-		int count = 0;
-		for (String str : dic.keySet()) {
-			if (count + 1 > ITERATION_LIMIT) {
-				break;
-			}
-			assertEquals(trie.contains(str), pm.contains(str));
-			count++;
-		}
-		verify(trie, times(2 * count)).contains(anyString());
-	}
-
-	@Test
-	public void test03Delete_shouldAlwaysCallAndReturnTrieMethod() {
-		int count = 0;
-		for (String str : dic.keySet()) {
-			if (count + 1 > ITERATION_LIMIT) {
-				break;
-			}
-			assertEquals(trie.delete(str), pm.delete(str));
-			count++;
-		}
-		verify(trie, times(2 * count)).delete(anyString());
-	}
-
-	@Test
-	public void test04Size_shouldAlwaysCallAndReturnTrieMethod() {
-		for (int i = 0; i < ITERATION_LIMIT; i++) {
-			assertEquals(trie.size(), pm.size());
-		}
-		verify(trie, times(2 * ITERATION_LIMIT)).size();
-	}
-
-	@Test
-	public void test05WordsWithPrefixString_argLessThenMinWordLength_shouldReturnEmptyData() {
-		pm = new PrefixMatches(new RWayTrie<>());
-		for (String str : dic.keySet()) {
-			if (str.length() < MIN_WORD_LENGTH) {
-				Iterable<String> result = pm.wordsWithPrefix(str);
-				assertFalse(result.iterator().hasNext());
-			}
-		}
-	}
-
-	@Test
-	public void test06WordsWithPrefixString_correctInput_shouldReturnDefaultNumberOfWordSets() {
-		trie = new RWayTrie<>();
-		for (String str : dic.keySet()) {
-			trie.add(new Tuple<Integer>(str, str.length()));
-		}
-		pm = new PrefixMatches(trie);
-		for (String str : dic.keySet()) {
-			if (str.length() >= MIN_PREFIX_LENGTH) {
-				List<String> trieResult = (List<String>) trie.wordsWithPrefix(str);
-				// Filtering reference collection from words with length less
-				// than
-				// MIN_WORD_LENGTH
-				for (int i = 0; i < trieResult.size(); i++) {
-					if (trieResult.get(i).length() < MIN_WORD_LENGTH) {
-						trieResult.remove(i);
-					} else {
-						break;
-					}
-				}
-				int lenCount = 0;
-				List<String> pmResult = (List<String>) pm.wordsWithPrefix(str);
-				// Estimating actual number of word sets
-				for (int i = 0, curLen = 0; i < pmResult.size(); i++) {
-					if (curLen < pmResult.get(i).length()) {
-						curLen = pmResult.get(i).length();
-						lenCount++;
-					}
-					assertEquals(trieResult.get(i), pmResult.get(i));
-				}
-				if (!pmResult.isEmpty()) {
-					assertTrue(lenCount >= 1);
-				}
-				assertTrue(lenCount <= DEFAULT_WORD_SET_LENGTH);
-			}
-		}
-	}
-
-	@Test
-	public void test07WordsWithPrefixStringInt_correctInput_shouldReturnAppropNumberOfWordSets() {
-		trie = new RWayTrie<>();
-		for (String str : dic.keySet()) {
-			trie.add(new Tuple<Integer>(str, str.length()));
-		}
-		pm = new PrefixMatches(trie);
-		for (String str : dic.keySet()) {
-			if (str.length() >= MIN_PREFIX_LENGTH) {
-				List<String> trieResult = (List<String>) trie.wordsWithPrefix(str);
-				int refLenCount = 0;
-				// Filtering reference collection from words with length less
-				// than MIN_WORD_LENGTH and estimating number of word sets in
-				// reference collection
-				for (int i = 0, curLen = 0; i < trieResult.size(); i++) {
-					if (trieResult.get(i).length() < MIN_WORD_LENGTH) {
-						trieResult.remove(i);
-						continue;
-					}
-					if (curLen < trieResult.get(i).length()) {
-						curLen = trieResult.get(i).length();
-						refLenCount++;
-					}
-				}
-				for (int i = 1; i <= refLenCount; i++) {
-					int lenCount = 0;
-					List<String> pmResult = (List<String>) pm.wordsWithPrefix(str, i);
-					// Estimating actual number of word sets
-					for (int j = 0, curLen = 0; j < pmResult.size(); j++) {
-						if (curLen < pmResult.get(j).length()) {
-							curLen = pmResult.get(j).length();
-							lenCount++;
-						}
-						assertEquals(trieResult.get(j), pmResult.get(j));
-					}
-					assertEquals(i, lenCount);
-				}
-			}
-		}
-	}
-
-	@Test
-	public void test08WordsWithPrefixStringInt_invalidIntArg_shouldReturnEmptyData() {
-		trie = new RWayTrie<>();
-		for (String str : dic.keySet()) {
-			trie.add(new Tuple<Integer>(str, str.length()));
-		}
-		pm = new PrefixMatches(trie);
-		for (String str : dic.keySet()) {
-			assertEquals(0, ((List<String>) pm.wordsWithPrefix(str, -1)).size());
-			assertEquals(0, ((List<String>) pm.wordsWithPrefix(str, 0)).size());
-		}
-	}
-}
+package com.epam.lab.auto_completion;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Scanner;
+import java.util.TreeSet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.epam.lab.auto_completion.trie.QueryBudget;
+import com.epam.lab.auto_completion.trie.QueryResult;
+import com.epam.lab.auto_completion.trie.RWayTrie;
+import com.epam.lab.auto_completion.trie.Trie.Tuple;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class PrefixMatchesTest {
+
+	private static final String DELIMITER_REGEX = "\\s(?=[a-z])";
+	private static Map<String, String> dic;
+	private static final String DIC_FILEPATH = "src/test/resources/dic.txt";
+	private static final int ITERATION_LIMIT = 50000;
+	private static final int MIN_WORD_LENGTH = 3;
+	private static final int DEFAULT_WORD_SET_LENGTH = 3;
+	private static final int MIN_PREFIX_LENGTH = 2;
+
+	private static final String SPACE = " ";
+
+	@BeforeClass
+	public static void setupDic() throws IOException {
+		Scanner scanner = new Scanner(new File(DIC_FILEPATH));
+		dic = new HashMap<>();
+		String[] wordAr;
+		try {
+			while (scanner.hasNextLine()) {
+				wordAr = scanner.nextLine().split(DELIMITER_REGEX);
+				dic.put(wordAr[1].trim(), wordAr[0].trim());
+			}
+		} finally {
+			scanner.close();
+		}
+	}
+
+	@InjectMocks
+	private PrefixMatches pm;
+
+	@Mock
+	private RWayTrie<Integer> trie;
+
+	private AutoCloseable mocks;
+
+	@Before
+	public void setupTest() {
+
+		mocks = openMocks(this);
+		when(trie.contains(anyString()))
+				.thenAnswer((inv) -> ((String) inv.getArguments()[0]).length() >= MIN_WORD_LENGTH);
+		when(trie.delete(anyString()))
+				.thenAnswer((inv) -> ((String) inv.getArguments()[0]).length() >= MIN_WORD_LENGTH);
+		when(trie.size()).then(new Answer<Integer>() {
+			private int count;
+
+			@Override
+			public Integer answer(InvocationOnMock invocation) throws Throwable {
+				return (++count % 2 == 0) ? count / 2 : (count + 1) / 2;
+			}
+		});
+	}
+
+	@After
+	public void closeMocks() throws Exception {
+		mocks.close();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void test01Add_shouldSplitAndAddAllWordsThatSatisfyMinLength() {
+		StringBuilder sb = new StringBuilder();
+		int count = 0;
+		for (String str : dic.keySet()) {
+			if (str.length() < MIN_WORD_LENGTH) {
+				continue;
+			}
+			sb.append(str).append(SPACE);
+			count++;
+		}
+		assertEquals(count, pm.add(sb.toString()));
+		verify(trie, times(count)).add(isA(Tuple.class));
+		verifyNoMoreInteractions(trie);
+	}
+
+	@Test
+	public void test02Contains_shouldAlwaysCallAndReturnTrieMethod() {
+		int count = 0;
+		for (String str : dic.keySet()) {
+			if (count + 1 > ITERATION_LIMIT) {
+				break;
+			}
+			assertEquals(trie.contains(str), pm.contains(str));
+			count++;
+		}
+		verify(trie, times(2 * count)).contains(anyString());
+	}
+
+	@Test
+	public void test03Delete_shouldAlwaysCallAndReturnTrieMethod() {
+		int count = 0;
+		for (String str : dic.keySet()) {
+			if (count + 1 > ITERATION_LIMIT) {
+				break;
+			}
+			assertEquals(trie.delete(str), pm.delete(str));
+			count++;
+		}
+		verify(trie, times(2 * count)).delete(anyString());
+	}
+
+	@Test
+	public void test04Size_shouldAlwaysCallAndReturnTrieMethod() {
+		for (int i = 0; i < ITERATION_LIMIT; i++) {
+			assertEquals(trie.size(), pm.size());
+		}
+		verify(trie, times(2 * ITERATION_LIMIT)).size();
+	}
+
+	@Test
+	public void test05WordsWithPrefixString_argLessThenMinWordLength_shouldReturnEmptyData() {
+		pm = new PrefixMatches(new RWayTrie<>());
+		for (String str : dic.keySet()) {
+			if (str.length() < MIN_WORD_LENGTH) {
+				Iterable<String> result = pm.wordsWithPrefix(str);
+				assertFalse(result.iterator().hasNext());
+			}
+		}
+	}
+
+	@Test
+	public void test06WordsWithPrefixString_correctInput_shouldReturnDefaultNumberOfWordSets() {
+		trie = new RWayTrie<>();
+		for (String str : dic.keySet()) {
+			trie.add(new Tuple<Integer>(str, str.length()));
+		}
+		pm = new PrefixMatches(trie);
+		for (String str : dic.keySet()) {
+			if (str.length() >= MIN_PREFIX_LENGTH) {
+				List<String> trieResult = (List<String>) trie.wordsWithPrefix(str);
+				// Filtering reference collection from words with length less
+				// than
+				// MIN_WORD_LENGTH
+				for (int i = 0; i < trieResult.size(); i++) {
+					if (trieResult.get(i).length() < MIN_WORD_LENGTH) {
+						trieResult.remove(i);
+					} else {
+						break;
+					}
+				}
+				int lenCount = 0;
+				List<String> pmResult = (List<String>) pm.wordsWithPrefix(str);
+				// Estimating actual number of word sets
+				for (int i = 0, curLen = 0; i < pmResult.size(); i++) {
+					if (curLen < pmResult.get(i).length()) {
+						curLen = pmResult.get(i).length();
+						lenCount++;
+					}
+					assertEquals(trieResult.get(i), pmResult.get(i));
+				}
+				if (!pmResult.isEmpty()) {
+					assertTrue(lenCount >= 1);
+				}
+				assertTrue(lenCount <= DEFAULT_WORD_SET_LENGTH);
+			}
+		}
+	}
+
+	@Test
+	public void test07WordsWithPrefixStringInt_correctInput_shouldReturnAppropNumberOfWordSets() {
+		trie = new RWayTrie<>();
+		for (String str : dic.keySet()) {
+			trie.add(new Tuple<Integer>(str, str.length()));
+		}
+		pm = new PrefixMatches(trie);
+		for (String str : dic.keySet()) {
+			if (str.length() >= MIN_PREFIX_LENGTH) {
+				List<String> trieResult = (List<String>) trie.wordsWithPrefix(str);
+				int refLenCount = 0;
+				// Filtering reference collection from words with length less
+				// than MIN_WORD_LENGTH and estimating number of word sets in
+				// reference collection
+				for (int i = 0, curLen = 0; i < trieResult.size(); i++) {
+					if (trieResult.get(i).length() < MIN_WORD_LENGTH) {
+						trieResult.remove(i);
+						continue;
+					}
+					if (curLen < trieResult.get(i).length()) {
+						curLen = trieResult.get(i).length();
+						refLenCount++;
+					}
+				}
+				for (int i = 1; i <= refLenCount; i++) {
+					int lenCount = 0;
+					List<String> pmResult = (List<String>) pm.wordsWithPrefix(str, i);
+					// Estimating actual number of word sets
+					for (int j = 0, curLen = 0; j < pmResult.size(); j++) {
+						if (curLen < pmResult.get(j).length()) {
+							curLen = pmResult.get(j).length();
+							lenCount++;
+						}
+						assertEquals(trieResult.get(j), pmResult.get(j));
+					}
+					assertEquals(i, lenCount);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void test08WordsWithPrefixStringInt_invalidIntArg_shouldReturnEmptyData() {
+		trie = new RWayTrie<>();
+		for (String str : dic.keySet()) {
+			trie.add(new Tuple<Integer>(str, str.length()));
+		}
+		pm = new PrefixMatches(trie);
+		for (String str : dic.keySet()) {
+			assertEquals(0, ((List<String>) pm.wordsWithPrefix(str, -1)).size());
+			assertEquals(0, ((List<String>) pm.wordsWithPrefix(str, 0)).size());
+		}
+	}
+
+	@Test
+	public void test09CountWithPrefix_shouldCountDictionaryWords() {
+		trie = new RWayTrie<>();
+		for (String str : dic.keySet()) {
+			trie.add(new Tuple<Integer>(str, str.length()));
+		}
+		pm = new PrefixMatches(trie);
+		for (String str : dic.keySet()) {
+			int count = 0;
+			if (str.length() >= MIN_PREFIX_LENGTH) {
+				for (String word : trie.wordsWithPrefix(str)) {
+					if (word.length() >= MIN_WORD_LENGTH) {
+						count++;
+					}
+				}
+			}
+			assertEquals(count, pm.countWithPrefix(str));
+		}
+	}
+
+	@Test
+	public void test10WordsWithPrefixOffsetLimit_shouldReturnPagesOfDictionaryWords() {
+		trie = new RWayTrie<>();
+		for (String str : dic.keySet()) {
+			trie.add(new Tuple<Integer>(str, str.length()));
+		}
+		pm = new PrefixMatches(trie);
+		int pageSize = 2;
+		for (String str : dic.keySet()) {
+			if (str.length() < MIN_PREFIX_LENGTH) {
+				assertFalse(pm.wordsWithPrefix(str, 0, pageSize).iterator().hasNext());
+				continue;
+			}
+			List<String> pages = new ArrayList<>();
+			for (int offset = 0; offset < pm.countWithPrefix(str); offset += pageSize) {
+				for (String word : pm.wordsWithPrefix(str, offset, pageSize)) {
+					assertTrue(word.length() >= MIN_WORD_LENGTH);
+					pages.add(word);
+				}
+			}
+			assertEquals(pm.countWithPrefix(str), pages.size());
+		}
+	}
+
+	@Test
+	public void test11WordsWithPrefixStringInt_hotPrefixes_shouldReturnSameWordSets() {
+		trie = new RWayTrie<>();
+		for (String str : dic.keySet()) {
+			trie.add(new Tuple<Integer>(str, str.length()));
+		}
+		trie.setHotPrefixes(3, 8);
+		pm = new PrefixMatches(trie);
+		for (String str : dic.keySet()) {
+			if (str.length() < MIN_PREFIX_LENGTH) {
+				continue;
+			}
+			List<String> trieResult = (List<String>) trie.wordsWithPrefix(str);
+			for (int k = 1; k <= DEFAULT_WORD_SET_LENGTH; k++) {
+				List<String> refList = new ArrayList<>();
+				int sets = k;
+				for (int curLen = 0, i = 0; i < trieResult.size(); i++) {
+					String word = trieResult.get(i);
+					if (word.length() < MIN_WORD_LENGTH) {
+						continue;
+					}
+					if (word.length() > curLen && --sets == -1) {
+						break;
+					}
+					curLen = word.length();
+					refList.add(word);
+				}
+				assertEquals(refList, pm.wordsWithPrefix(str, k));
+			}
+		}
+	}
+
+	@Test
+	public void test12RankedWordsWithPrefix_recordedSelections_shouldRankByFrequency() {
+		pm = new PrefixMatches(new RWayTrie<>());
+		pm.add("word", "wordy", "works", "worm");
+		assertTrue(pm.recordSelection("works"));
+		assertTrue(pm.recordSelection("works"));
+		assertTrue(pm.recordSelection("wordy"));
+		assertFalse(pm.recordSelection("worst"));
+		List<String> ranked = new ArrayList<>();
+		pm.rankedWordsWithPrefix("wor", 3).forEach(ranked::add);
+		assertEquals(Arrays.asList("works", "wordy", "word"), ranked);
+		assertFalse(pm.rankedWordsWithPrefix("w", 3).iterator().hasNext());
+	}
+
+	@Test
+	public void test13WordsContaining_shouldReturnLengthSetsOfMatchingWords() {
+		pm = new PrefixMatches(new RWayTrie<>());
+		pm.add("phone smartphone headphones phony telephone xylophone");
+		List<String> found = new ArrayList<>();
+		pm.wordsContaining("phone", 2).forEach(found::add);
+		assertEquals(Arrays.asList("phone", "telephone", "xylophone"), found);
+		assertTrue(pm.delete("phone"));
+		pm.add("iphone");
+		found.clear();
+		pm.wordsContaining("phone", 1).forEach(found::add);
+		assertEquals(Arrays.asList("iphone"), found);
+		assertFalse(pm.wordsContaining("p", 3).iterator().hasNext());
+	}
+
+	@Test
+	public void test14WordsWithPrefixBudget_shouldReturnPartialResultWhenBudgetRunsOut() {
+		pm = new PrefixMatches(new RWayTrie<>());
+		pm.add(dic.keySet().toArray(new String[dic.size()]));
+		for (String str : dic.keySet()) {
+			if (str.length() < MIN_PREFIX_LENGTH) {
+				continue;
+			}
+			String prefix = str.substring(0, MIN_PREFIX_LENGTH);
+			QueryResult result = pm.wordsWithPrefix(prefix, new QueryBudget());
+			assertFalse(result.isTruncated());
+			assertEquals(pm.wordsWithPrefix(prefix), result.getWords());
+		}
+		QueryBudget budget = new QueryBudget();
+		budget.setMaxNodeVisits(1);
+		QueryResult result = pm.wordsWithPrefix("aa", DEFAULT_WORD_SET_LENGTH, budget);
+		assertTrue(result.isTruncated());
+		assertTrue(result.getWords().isEmpty());
+	}
+
+	@Test
+	public void test15WordsContaining_changesAfterIndexBuild_shouldMatchFullScan() {
+		List<Runnable> rebuilds = new ArrayList<>();
+		List<Runnable> wordsReadHooks = new ArrayList<>();
+		pm = new PrefixMatches(new RWayTrie<Integer>() {
+			@Override
+			public Iterable<String> words() {
+				Iterable<String> words = super.words();
+				wordsReadHooks.forEach(Runnable::run);
+				return words;
+			}
+		});
+		pm.setSuffixIndexExecutor(rebuilds::add);
+		Set<String> words = new TreeSet<>();
+		for (String str : dic.keySet()) {
+			if (str.length() >= MIN_WORD_LENGTH && pm.add(str) == 1) {
+				words.add(str);
+			}
+		}
+		assertContaining(words, "ab");
+		assertEquals(1, rebuilds.size());
+		rebuilds.remove(0).run();
+		int count = 0;
+		for (String str : new ArrayList<>(words)) {
+			if (count++ % 3 == 0) {
+				assertTrue(pm.delete(str));
+				words.remove(str);
+			} else if (count % 3 == 0) {
+				pm.add(str + "ab");
+				words.add(str + "ab");
+			}
+		}
+		assertContaining(words, "ab");
+		assertEquals(1, rebuilds.size());
+		// Changes made after the rebuild has read the words are merged
+		String deleted = words.stream().filter(word -> word.contains("ab")).findFirst().get();
+		wordsReadHooks.add(() -> {
+			pm.add("crabs");
+			assertTrue(pm.delete(deleted));
+		});
+		rebuilds.remove(0).run();
+		wordsReadHooks.clear();
+		words.add("crabs");
+		words.remove(deleted);
+		assertTrue(rebuilds.isEmpty());
+		assertContaining(words, "ab");
+		assertContaining(words, "ing");
+
+		pm.setTrie(new RWayTrie<>());
+		pm.add("cabin");
+		assertContaining(new TreeSet<>(Arrays.asList("cabin")), "ab");
+		rebuilds.forEach(Runnable::run);
+		assertContaining(new TreeSet<>(Arrays.asList("cabin")), "ab");
+	}
+
+	@Test
+	public void test16WordsContaining_bulkLoadWithoutQueries_shouldRebuildAndDropStaleIndex() {
+		List<Runnable> rebuilds = new ArrayList<>();
+		int[] scans = new int[1];
+		pm = new PrefixMatches(new RWayTrie<Integer>() {
+			@Override
+			public Iterable<String> words() {
+				scans[0]++;
+				return super.words();
+			}
+		});
+		pm.setSuffixIndexExecutor(rebuilds::add);
+		Set<String> words = new TreeSet<>();
+		for (String str : dic.keySet()) {
+			if (str.length() >= MIN_WORD_LENGTH && pm.add(str) == 1) {
+				words.add(str);
+			}
+		}
+		assertContaining(words, "ab");
+		rebuilds.remove(0).run();
+		scans[0] = 0;
+		// The changes crossing the threshold start the rebuild without a query
+		int count = 0;
+		while (rebuilds.isEmpty() && count < 10000) {
+			String word = "zq" + Integer.toString(count++, Character.MAX_RADIX).replaceAll("[0-9]", "x");
+			if (words.add(word)) {
+				pm.add(word);
+			}
+		}
+		assertEquals(1, rebuilds.size());
+		assertContaining(words, "ab");
+		assertEquals(0, scans[0]);
+		// Stale index is dropped if the changes keep growing meanwhile
+		for (int i = 0; i < count; i++) {
+			String word = "zqab" + Integer.toString(i, Character.MAX_RADIX).replaceAll("[0-9]", "x");
+			words.add(word);
+			pm.add(word);
+		}
+		assertContaining(words, "ab");
+		assertEquals(1, scans[0]);
+		rebuilds.remove(0).run();
+		assertTrue(rebuilds.isEmpty());
+		assertContaining(words, "ab");
+		assertEquals(2, scans[0]);
+	}
+
+	private void assertContaining(Set<String> words, String fragment) {
+		List<String> expected = new ArrayList<>();
+		List<String> matching = new ArrayList<>();
+		for (String word : words) {
+			if (word.contains(fragment)) {
+				matching.add(word);
+			}
+		}
+		matching.sort(Comparator.comparingInt(String::length).thenComparing(Comparator.naturalOrder()));
+		for (int curLen = 0, sets = DEFAULT_WORD_SET_LENGTH, i = 0; i < matching.size(); i++) {
+			String word = matching.get(i);
+			if (word.length() > curLen && --sets == -1) {
+				break;
+			}
+			curLen = word.length();
+			expected.add(word);
+		}
+		List<String> actual = new ArrayList<>();
+		pm.wordsContaining(fragment, DEFAULT_WORD_SET_LENGTH).forEach(actual::add);
+		assertEquals(expected, actual);
+	}
+}
@@ -0,0 +1,113 @@
+package com.epam.lab.auto_completion.bench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.epam.lab.auto_completion.PrefixMatches;
+import com.epam.lab.auto_completion.server.CompletionServer;
+import com.epam.lab.auto_completion.trie.RWayTrie;
+
+/**
+ * Load test client of the CompletionServer. Sends completion requests for the
+ * random short prefixes from the specified number of threads during the
+ * specified time and reports the throughput and the latency percentiles. If no
+ * server URL is specified, starts a local server with a random dictionary.
+ * Usage: CompletionLoadClient [threads] [seconds] [server URL].
+ */
+public class CompletionLoadClient {
+
+	private static final int DEFAULT_THREADS = 32;
+	private static final int DEFAULT_SECONDS = 10;
+	private static final int LOCAL_WORDS = 200_000;
+	private static final int PREFIX_LENGTH = 2;
+	private static final long SEED = 42;
+
+	public static void main(String[] args) throws Exception {
+		int threads = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_THREADS;
+		int seconds = (args.length > 1) ? Integer.parseInt(args[1]) : DEFAULT_SECONDS;
+		CompletionServer server = null;
+		String baseUrl;
+		if (args.length > 2) {
+			baseUrl = args[2];
+		} else {
+			server = startLocalServer();
+			baseUrl = "http://localhost:" + server.getAddress().getPort();
+		}
+		ExecutorService clients = Executors.newFixedThreadPool(threads);
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+		List<Future<List<Long>>> results = new ArrayList<>();
+		for (int i = 0; i < threads; i++) {
+			long seed = SEED + i;
+			results.add(clients.submit(() -> run(baseUrl, deadline, new Random(seed))));
+		}
+		List<Long> latencies = new ArrayList<>();
+		for (Future<List<Long>> result : results) {
+			latencies.addAll(result.get());
+		}
+		clients.shutdown();
+		if (server != null) {
+			server.stop(0);
+		}
+		Collections.sort(latencies);
+		System.out.printf("threads: %d, requests: %d, QPS: %.0f%n", threads, latencies.size(),
+				(double) latencies.size() / seconds);
+		System.out.printf("latency us: p50 %d, p99 %d, p99.9 %d, max %d%n", percentile(latencies, 0.5),
+				percentile(latencies, 0.99), percentile(latencies, 0.999), percentile(latencies, 1));
+	}
+
+	private static List<Long> run(String baseUrl, long deadline, Random random) throws IOException {
+		List<Long> latencies = new ArrayList<>();
+		byte[] buffer = new byte[8192];
+		while (System.nanoTime() < deadline) {
+			StringBuilder prefix = new StringBuilder();
+			for (int i = 0; i < PREFIX_LENGTH; i++) {
+				prefix.append((char) ('a' + random.nextInt(26)));
+			}
+			long start = System.nanoTime();
+			HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + "/complete?prefix=" + prefix)
+					.openConnection();
+			try (InputStream in = connection.getInputStream()) {
+				while (in.read(buffer) != -1) {
+					// Response body is read to the end, so the connection is reused
+				}
+			}
+			latencies.add(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+		}
+		return latencies;
+	}
+
+	private static CompletionServer startLocalServer() throws IOException {
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+		Random random = new Random(SEED);
+		PrefixMatches pm = new PrefixMatches(new RWayTrie<>());
+		for (int i = 0; i < LOCAL_WORDS; i++) {
+			StringBuilder word = new StringBuilder();
+			for (int len = 3 + random.nextInt(8); len > 0; len--) {
+				word.append((char) ('a' + random.nextInt(26)));
+			}
+			pm.add(word.toString());
+		}
+		CompletionServer server = new CompletionServer(pm, new InetSocketAddress("localhost", 0));
+		server.start();
+		return server;
+	}
+
+	private static long percentile(List<Long> sorted, double fraction) {
+		if (sorted.isEmpty()) {
+			return 0;
+		}
+		int index = (int) Math.ceil(fraction * sorted.size()) - 1;
+		return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1)));
+	}
+}
@@ -0,0 +1,123 @@
+package com.epam.lab.auto_completion.bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Deterministic generator of the dictionaries for the tests and benchmarks.
+ * Words are drawn from the English letter frequencies with a word length
+ * distribution peaking at 4-6 letters, so the words share prefixes the way
+ * the natural dictionary words do. The same count and seed always produce the
+ * same words in the same order. Generated dictionary holds the distinct words
+ * only, so 10^7 words require a few gigabytes of heap. Usage:
+ * DictionaryGenerator [file] [number of words] [seed] writes the dictionary
+ * in the "number word" lines format of the test resources dic.txt.
+ */
+public class DictionaryGenerator {
+
+	public static final long DEFAULT_SEED = 42;
+
+	private static final String DEFAULT_FILE = "src/test/resources/dic.txt";
+	private static final int DEFAULT_WORDS = 3000;
+	private static final int MAX_NUMBER = 10000;
+
+	/**
+	 * Relative frequencies of the word lengths starting from one letter.
+	 */
+	private static final int[] LENGTH_WEIGHTS = { 1, 6, 14, 16, 16, 14, 11, 8, 6, 4, 2, 2 };
+	/**
+	 * Relative frequencies of the letters 'a' to 'z' in English text.
+	 */
+	private static final int[] LETTER_WEIGHTS = { 82, 15, 28, 43, 127, 22, 20, 61, 70, 2, 8, 40, 24, 67, 75, 19, 1,
+			60, 63, 91, 28, 10, 24, 2, 20, 1 };
+
+	private static final int[] LENGTH_TOTALS = cumulative(LENGTH_WEIGHTS);
+	private static final int[] LETTER_TOTALS = cumulative(LETTER_WEIGHTS);
+
+	public static void main(String[] args) throws IOException {
+		String file = (args.length > 0) ? args[0] : DEFAULT_FILE;
+		int count = (args.length > 1) ? Integer.parseInt(args[1]) : DEFAULT_WORDS;
+		long seed = (args.length > 2) ? Long.parseLong(args[2]) : DEFAULT_SEED;
+		List<String> words = words(count, seed);
+		Random random = new Random(seed);
+		List<String> lines = new ArrayList<>(count);
+		for (String word : words) {
+			lines.add((1 + random.nextInt(MAX_NUMBER)) + " " + word);
+		}
+		Collections.sort(lines, (first, second) -> first.substring(first.indexOf(' '))
+				.compareTo(second.substring(second.indexOf(' '))));
+		try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(file), StandardCharsets.US_ASCII)) {
+			for (String line : lines) {
+				writer.write(line);
+				writer.write("\r\n");
+			}
+		}
+	}
+
+	/**
+	 * Returns the specified number of the distinct words generated from the
+	 * specified seed.
+	 * 
+	 * @param count
+	 *            - number of the words.
+	 * @param seed
+	 *            - seed of the generator.
+	 * @return distinct words in the order of their generation.
+	 */
+	public static List<String> words(int count, long seed) {
+		Random random = new Random(seed);
+		Set<String> unique = new HashSet<>(count * 2);
+		List<String> words = new ArrayList<>(count);
+		while (words.size() < count) {
+			String word = word(random);
+			if (unique.add(word)) {
+				words.add(word);
+			}
+		}
+		return words;
+	}
+
+	/**
+	 * Returns the next generated word, which may repeat the previous ones.
+	 * 
+	 * @param random
+	 *            - source of the randomness.
+	 * @return generated word.
+	 */
+	public static String word(Random random) {
+		int length = 1 + pick(LENGTH_TOTALS, random);
+		char[] chars = new char[length];
+		for (int i = 0; i < length; i++) {
+			chars[i] = (char) ('a' + pick(LETTER_TOTALS, random));
+		}
+		return new String(chars);
+	}
+
+	private static int pick(int[] totals, Random random) {
+		int value = random.nextInt(totals[totals.length - 1]);
+		int index = 0;
+		while (totals[index] <= value) {
+			index++;
+		}
+		return index;
+	}
+
+	private static int[] cumulative(int[] weights) {
+		int[] totals = new int[weights.length];
+		int total = 0;
+		for (int i = 0; i < weights.length; i++) {
+			total += weights[i];
+			totals[i] = total;
+		}
+		return totals;
+	}
+}
@@ -0,0 +1,118 @@
+package com.epam.lab.auto_completion.bench;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import com.epam.lab.auto_completion.trie.FrontCodedTrie;
+import com.epam.lab.auto_completion.trie.FrozenTrie;
+import com.epam.lab.auto_completion.trie.RWayTrie;
+import com.epam.lab.auto_completion.trie.Trie;
+import com.epam.lab.auto_completion.trie.Trie.Tuple;
+
+/**
+ * Compares the lookup latency and the retained heap of pointer based RWayTrie
+ * with the ones of the arrays based FrozenTrie and of the front-coded
+ * FrontCodedTrie. Retained heap is measured as the growth of the used heap
+ * after garbage collection, so it is approximate. Dictionary is big enough not
+ * to fit in CPU caches and the keys are looked up in random order, so the
+ * lookups are cache miss heavy. Usage: LookupBenchmark [number of words]
+ * [number of lookups].
+ */
+public class LookupBenchmark {
+
+	private static final int DEFAULT_WORDS = 1_000_000;
+	private static final int DEFAULT_LOOKUPS = 2_000_000;
+	private static final int ROUNDS = 5;
+	private static final long SEED = 42;
+	private static final int MAX_WORD_LENGTH = 12;
+	private static final int MIN_WORD_LENGTH = 3;
+
+	/**
+	 * Receives results of the measured calls, so JIT does not eliminate them.
+	 */
+	private static volatile int sink;
+
+	public static void main(String[] args) {
+		int wordCount = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_WORDS;
+		int lookupCount = (args.length > 1) ? Integer.parseInt(args[1]) : DEFAULT_LOOKUPS;
+		Random random = new Random(SEED);
+		List<String> words = randomWords(random, wordCount);
+		long used = usedHeap();
+		RWayTrie<Integer> rWayTrie = new RWayTrie<>();
+		for (String word : words) {
+			rWayTrie.add(new Tuple<Integer>(word, word.length()));
+		}
+		long rWayBytes = usedHeap() - used;
+		used = usedHeap();
+		FrozenTrie<Integer> frozenTrie = rWayTrie.freeze();
+		long frozenBytes = usedHeap() - used;
+		used = usedHeap();
+		FrontCodedTrie<Integer> frontCodedTrie = FrontCodedTrie.of(rWayTrie);
+		long frontCodedBytes = usedHeap() - used;
+
+		// Half of the lookups are hits, the other half are misses
+		List<String> lookups = new ArrayList<>(lookupCount);
+		for (int i = 0; i < lookupCount; i++) {
+			lookups.add((i % 2 == 0) ? words.get(random.nextInt(words.size())) : randomWord(random));
+		}
+		Collections.shuffle(lookups, random);
+		String[] keys = lookups.toArray(new String[lookups.size()]);
+
+		System.out.printf("words: %d, lookups: %d%n", wordCount, lookupCount);
+		System.out.printf("retained heap: RWayTrie %.1f MB, FrozenTrie %.1f MB, FrontCodedTrie %.1f MB"
+				+ " (keys %.1f MB)%n", megabytes(rWayBytes), megabytes(frozenBytes), megabytes(frontCodedBytes),
+				megabytes(frontCodedTrie.keyBytes()));
+		for (int round = 1; round <= ROUNDS; round++) {
+			System.out.printf("round %d: RWayTrie %6.1f ns/op, FrozenTrie %6.1f ns/op, FrontCodedTrie %6.1f ns/op%n",
+					round, measure(rWayTrie, keys), measure(frozenTrie, keys), measure(frontCodedTrie, keys));
+		}
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	private static double megabytes(long bytes) {
+		return bytes / (1024.0 * 1024.0);
+	}
+
+	private static double measure(Trie<Integer> trie, String[] keys) {
+		int found = 0;
+		long start = System.nanoTime();
+		for (String key : keys) {
+			if (trie.contains(key)) {
+				found++;
+			}
+		}
+		long elapsed = System.nanoTime() - start;
+		sink = found;
+		return (double) elapsed / keys.length;
+	}
+
+	private static List<String> randomWords(Random random, int count) {
+		Set<String> words = new HashSet<>();
+		while (words.size() < count) {
+			words.add(randomWord(random));
+		}
+		List<String> result = new ArrayList<>(words);
+		Collections.shuffle(result, random);
+		return result;
+	}
+
+	private static String randomWord(Random random) {
+		int length = MIN_WORD_LENGTH + random.nextInt(MAX_WORD_LENGTH - MIN_WORD_LENGTH + 1);
+		StringBuilder sb = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			sb.append((char) ('a' + random.nextInt(26)));
+		}
+		return sb.toString();
+	}
+}
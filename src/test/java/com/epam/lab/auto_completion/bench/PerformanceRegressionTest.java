@@ -0,0 +1,176 @@
+package com.epam.lab.auto_completion.bench;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import com.epam.lab.auto_completion.PrefixMatches;
+import com.epam.lab.auto_completion.trie.FrontCodedTrie;
+import com.epam.lab.auto_completion.trie.RWayTrie;
+import com.epam.lab.auto_completion.trie.Trie.Tuple;
+
+/**
+ * Performance regression suite asserting upper bounds on the allocation of
+ * the completion queries, on the retained heap per dictionary word and on the
+ * build time per million words. Dictionaries are generated by
+ * DictionaryGenerator, so the measured work is the same on every run.
+ * Allocation of the query grows with the number of the words it completes, so
+ * it is bounded per completed word, which does not depend on the dictionary
+ * size. Bounds leave 1.5 to 3 times the measured values as headroom for the
+ * noise of shared build machines. By default the suite runs on 10^4 and 10^5
+ * words; the perf.words system property sets a comma separated list of the
+ * sizes, e.g. -Dperf.words=10000,1000000,10000000 (large sizes require a
+ * large heap). Measurements depend on the machine, so the suite is excluded
+ * from the default build and runs in the perf profile; CI builds must be run
+ * with it, e.g. mvn verify -Pperf, so a regression fails the build. Measured
+ * values are reported by the assertion messages.
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class PerformanceRegressionTest {
+
+	private static final String SIZES_PROPERTY = "perf.words";
+	private static final String DEFAULT_SIZES = "10000,100000";
+	private static final int QUERIES = 20000;
+	private static final int WARMUP_QUERIES = 20000;
+	private static final int MIN_MEASURED_WORDS = 100000;
+
+	private static final long MAX_BYTES_PER_RESULT_WORD = 1024;
+	private static final long MAX_RWAY_BYTES_PER_WORD = 640;
+	private static final long MAX_FRONT_CODED_BYTES_PER_WORD = 40;
+	private static final long MAX_BUILD_MILLIS_PER_MILLION = 6000;
+
+	/**
+	 * Receives results of the measured calls, so JIT does not eliminate them.
+	 */
+	private static volatile int sink;
+
+	@Test
+	public void test01WordsWithPrefix_shouldNotExceedAllocationBound() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+		assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+		threadBean.setThreadAllocatedMemoryEnabled(true);
+		long threadId = Thread.currentThread().getId();
+		for (int size : sizes()) {
+			List<String> words = DictionaryGenerator.words(size, DictionaryGenerator.DEFAULT_SEED);
+			PrefixMatches pm = new PrefixMatches(new RWayTrie<>());
+			for (String word : words) {
+				pm.add(word);
+			}
+			String[] prefixes = prefixes(words, WARMUP_QUERIES + QUERIES);
+			runQueries(pm, prefixes, 0, WARMUP_QUERIES);
+			long allocated = threadBean.getThreadAllocatedBytes(threadId);
+			int resultWords = runQueries(pm, prefixes, WARMUP_QUERIES, prefixes.length);
+			allocated = threadBean.getThreadAllocatedBytes(threadId) - allocated;
+			assertBound(size + " words: bytes allocated per completed word", allocated / Math.max(1, resultWords),
+					MAX_BYTES_PER_RESULT_WORD);
+		}
+	}
+
+	@Test
+	public void test02Build_shouldNotExceedRetainedHeapBound() {
+		for (int size : sizes()) {
+			if (size < MIN_MEASURED_WORDS) {
+				// Heap growth of small dictionaries is lost in the noise
+				continue;
+			}
+			List<String> words = DictionaryGenerator.words(size, DictionaryGenerator.DEFAULT_SEED);
+			long used = usedHeap();
+			RWayTrie<Integer> rWayTrie = build(words);
+			long rWayBytes = usedHeap() - used;
+			used = usedHeap();
+			FrontCodedTrie<Integer> frontCodedTrie = FrontCodedTrie.of(rWayTrie);
+			long frontCodedBytes = usedHeap() - used;
+			sink = rWayTrie.size() + frontCodedTrie.size();
+			assertBound(size + " words: RWayTrie retained bytes per word", rWayBytes / size,
+					MAX_RWAY_BYTES_PER_WORD);
+			assertBound(size + " words: FrontCodedTrie retained bytes per word", frontCodedBytes / size,
+					MAX_FRONT_CODED_BYTES_PER_WORD);
+		}
+	}
+
+	@Test
+	public void test03Build_shouldNotExceedBuildTimeBound() {
+		for (int size : sizes()) {
+			List<String> words = DictionaryGenerator.words(size, DictionaryGenerator.DEFAULT_SEED);
+			// Warm-up build, so the measured one runs compiled code
+			sink = build(words).size();
+			long start = System.nanoTime();
+			sink = build(words).size();
+			long millisPerMillion = (System.nanoTime() - start) / size;
+			assertBound(size + " words: build milliseconds per million words", millisPerMillion,
+					MAX_BUILD_MILLIS_PER_MILLION);
+		}
+	}
+
+	private static void assertBound(String measure, long value, long bound) {
+		assertTrue(measure + " " + value + " exceeds " + bound, value <= bound);
+	}
+
+	private static RWayTrie<Integer> build(List<String> words) {
+		RWayTrie<Integer> trie = new RWayTrie<>();
+		for (String word : words) {
+			trie.add(new Tuple<Integer>(word, word.length()));
+		}
+		return trie;
+	}
+
+	/**
+	 * Runs the completion queries for the specified range of the prefixes.
+	 * 
+	 * @return number of the completed words.
+	 */
+	private static int runQueries(PrefixMatches pm, String[] prefixes, int from, int to) {
+		int found = 0;
+		int length = 0;
+		for (int i = from; i < to; i++) {
+			for (String word : pm.wordsWithPrefix(prefixes[i])) {
+				found++;
+				length += word.length();
+			}
+		}
+		sink = length;
+		return found;
+	}
+
+	/**
+	 * Returns prefixes of 2 to 4 chars of the randomly chosen dictionary
+	 * words.
+	 */
+	private static String[] prefixes(List<String> words, int count) {
+		Random random = new Random(DictionaryGenerator.DEFAULT_SEED);
+		List<String> prefixes = new ArrayList<>(count);
+		while (prefixes.size() < count) {
+			String word = words.get(random.nextInt(words.size()));
+			if (word.length() >= 2) {
+				prefixes.add(word.substring(0, 2 + random.nextInt(Math.min(3, word.length() - 1))));
+			}
+		}
+		return prefixes.toArray(new String[count]);
+	}
+
+	private static List<Integer> sizes() {
+		List<Integer> sizes = new ArrayList<>();
+		for (String size : System.getProperty(SIZES_PROPERTY, DEFAULT_SIZES).split(",")) {
+			sizes.add(Integer.parseInt(size.trim()));
+		}
+		return sizes;
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -0,0 +1,98 @@
+package com.epam.lab.auto_completion.ingest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import com.epam.lab.auto_completion.PrefixMatches;
+import com.epam.lab.auto_completion.trie.RWayTrie;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class IngestPipelineTest {
+
+	private static final int WORD_COUNT = 20000;
+
+	private PrefixMatches pm;
+	private IngestPipeline pipeline;
+
+	@Before
+	public void setupTest() {
+		pm = new PrefixMatches(new RWayTrie<>());
+		pipeline = new IngestPipeline(pm);
+		pipeline.setBatchSize(16);
+		pipeline.setQueueCapacity(2);
+	}
+
+	@Test
+	public void test01Normalizers_shouldFoldStripAndTrim() {
+		TermNormalizer normalizer = StandardNormalizers.defaultChain();
+		assertEquals("word", normalizer.normalize("Word,"));
+		assertEquals("cafe", normalizer.normalize("(Café)"));
+		assertEquals("don't", normalizer.normalize("\"don't\""));
+		assertNull(normalizer.normalize("--"));
+	}
+
+	@Test
+	public void test02Ingest_shouldAddNormalizedDistinctWords() throws Exception {
+		int count = pipeline.ingest(new StringReader("Hello, world!\n  \"Crème\" brûlée; WORLD ab hello"));
+		assertEquals(4, count);
+		assertEquals(4, pm.size());
+		assertTrue(pm.contains("hello"));
+		assertTrue(pm.contains("world"));
+		assertTrue(pm.contains("creme"));
+		assertTrue(pm.contains("brulee"));
+		assertFalse(pm.contains("ab"));
+	}
+
+	@Test
+	public void test03Ingest_largeInput_shouldAddAllWords() throws Exception {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < WORD_COUNT; i++) {
+			sb.append(word(i)).append(", ").append(word(i).toUpperCase()).append('\n');
+		}
+		assertEquals(WORD_COUNT, pipeline.ingest(new StringReader(sb.toString())));
+		assertEquals(WORD_COUNT, pm.size());
+		for (int i = 0; i < WORD_COUNT; i++) {
+			assertTrue(pm.contains(word(i)));
+		}
+	}
+
+	private static String word(int number) {
+		StringBuilder sb = new StringBuilder("www");
+		for (int i = number; i > 0; i /= 26) {
+			sb.append((char) ('a' + i % 26));
+		}
+		return sb.toString();
+	}
+
+	@Test(expected = IOException.class)
+	public void test04Ingest_failingReader_shouldRethrowException() throws Exception {
+		pipeline.ingest(new Reader() {
+			@Override
+			public int read(char[] cbuf, int off, int len) throws IOException {
+				throw new IOException();
+			}
+
+			@Override
+			public void close() {
+			}
+		});
+	}
+
+	@Test
+	public void test05Ingest_rejectedTerms_shouldNotBeCounted() throws Exception {
+		assertEquals(1, pipeline.ingest(new StringReader("route66 hello don't")));
+		assertEquals(1, pm.size());
+		assertTrue(pm.contains("hello"));
+	}
+}
@@ -0,0 +1,167 @@
+package com.epam.lab.auto_completion.registry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runners.MethodSorters;
+
+import com.epam.lab.auto_completion.trie.FrozenTrie;
+import com.epam.lab.auto_completion.trie.RWayTrie;
+import com.epam.lab.auto_completion.trie.Trie.Tuple;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class DictionaryRegistryTest {
+
+	private static final String[] BASE_WORDS = { "word", "wordy", "works", "world", "worm", "apple", "apply" };
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path directory;
+	private DictionaryRegistry registry;
+
+	@Before
+	public void setupTest() throws IOException {
+		RWayTrie<Integer> base = new RWayTrie<>();
+		for (String word : BASE_WORDS) {
+			base.add(new Tuple<Integer>(word, word.length()));
+		}
+		FrozenTrie<Integer> frozenBase = base.freeze();
+		directory = folder.getRoot().toPath();
+		registry = new DictionaryRegistry(frozenBase, directory);
+	}
+
+	@Test
+	public void test01WithDictionary_tenantChanges_shouldNotAffectOtherTenants() throws IOException {
+		registry.withDictionary("first", pm -> pm.add("wormhole") + (pm.delete("world") ? 1 : 0));
+		assertEquals(list("word", "worm", "wordy", "works", "wormhole"),
+				registry.withDictionary("first", pm -> list(pm.wordsWithPrefix("wor", 5))));
+		assertEquals(list("word", "worm", "wordy", "works", "world"),
+				registry.withDictionary("second", pm -> list(pm.wordsWithPrefix("wor", 5))));
+		assertEquals(BASE_WORDS.length, (int) registry.withDictionary("first", pm -> pm.size()));
+	}
+
+	@Test
+	public void test02MemoryLimit_shouldUnloadColdTenantsAndReloadChanges() throws IOException {
+		registry.withDictionary("cold", pm -> pm.add("coldest words") + (pm.delete("apple") ? 1 : 0));
+		long coldBytes = registry.memoryUsage("cold");
+		assertTrue(coldBytes > 0);
+		assertEquals(coldBytes, registry.memoryUsage());
+		registry.setMemoryLimit(coldBytes);
+		registry.withDictionary("hot", pm -> pm.add("hottest"));
+		assertFalse(registry.isLoaded("cold"));
+		assertTrue(registry.isLoaded("hot"));
+		assertEquals(registry.memoryUsage("hot"), registry.memoryUsage());
+		assertTrue(Files.exists(directory.resolve("cold.delta")));
+
+		assertTrue(registry.withDictionary("cold", pm -> pm.contains("coldest")));
+		assertTrue(registry.withDictionary("cold", pm -> pm.contains("words")));
+		assertFalse(registry.withDictionary("cold", pm -> pm.contains("apple")));
+		assertFalse(registry.isLoaded("hot"));
+		assertTrue(registry.withDictionary("hot", pm -> pm.contains("hottest")));
+	}
+
+	@Test
+	public void test03Remove_shouldDropTenantAndFile() throws IOException {
+		registry.withDictionary("gone", pm -> pm.add("gonna"));
+		registry.unloadAll();
+		assertTrue(registry.remove("gone"));
+		assertFalse(Files.exists(directory.resolve("gone.delta")));
+		assertFalse(registry.withDictionary("gone", pm -> pm.contains("gonna")));
+		assertEquals(registry.memoryUsage("gone"), registry.memoryUsage());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void test04WithDictionary_invalidName_shouldThrowException() throws IOException {
+		registry.withDictionary("../etc", pm -> pm.size());
+	}
+
+	@Test
+	public void test05MemoryLimit_unloadFails_shouldReturnResultAndReportFailure() throws IOException {
+		List<IOException> failures = new ArrayList<>();
+		registry.setEvictionFailureHandler(failures::add);
+		registry.withDictionary("cold", pm -> pm.add("coldest"));
+		registry.setMemoryLimit(registry.memoryUsage("cold"));
+		Files.createDirectory(directory.resolve("cold.tmp"));
+		assertEquals(1, (int) registry.withDictionary("hot", pm -> pm.add("hottest")));
+		assertEquals(1, failures.size());
+		assertTrue(registry.isLoaded("cold"));
+		assertEquals(registry.memoryUsage("cold") + registry.memoryUsage("hot"), registry.memoryUsage());
+		assertTrue(registry.withDictionary("cold", pm -> pm.contains("coldest")));
+	}
+
+	@Test
+	public void test06Remove_busyTenant_shouldNotStallOtherTenants() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<Boolean> slow = executor.submit(() -> registry.withDictionary("slow", pm -> {
+				started.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+				return pm.add("slowest") == 1;
+			}));
+			started.await();
+			List<Boolean> removed = new ArrayList<>();
+			Thread remover = new Thread(() -> {
+				try {
+					removed.add(registry.remove("slow"));
+				} catch (IOException ex) {
+					throw new IllegalStateException(ex);
+				}
+			});
+			remover.start();
+			// Removal waits for the lock of the busy tenant
+			while (remover.getState() != Thread.State.BLOCKED) {
+				Thread.yield();
+			}
+			Future<Boolean> other = executor.submit(() -> registry.withDictionary("other", pm -> pm.add("others") == 1));
+			assertTrue(other.get(10, TimeUnit.SECONDS));
+			release.countDown();
+			assertTrue(slow.get(10, TimeUnit.SECONDS));
+			remover.join();
+			assertEquals(Arrays.asList(true), removed);
+		} finally {
+			release.countDown();
+			executor.shutdownNow();
+		}
+		assertFalse(registry.isLoaded("slow"));
+		assertFalse(registry.withDictionary("slow", pm -> pm.contains("slowest")));
+	}
+
+	private static List<String> list(String... words) {
+		List<String> result = new ArrayList<>();
+		for (String word : words) {
+			result.add(word);
+		}
+		return result;
+	}
+
+	private static List<String> list(Iterable<String> words) {
+		List<String> result = new ArrayList<>();
+		words.forEach(result::add);
+		return result;
+	}
+}
@@ -0,0 +1,185 @@
+package com.epam.lab.auto_completion.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import com.epam.lab.auto_completion.PrefixMatches;
+import com.epam.lab.auto_completion.trie.QueryBudget;
+import com.epam.lab.auto_completion.trie.QueryResult;
+import com.epam.lab.auto_completion.trie.RWayTrie;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class CompletionServerTest {
+
+	private CompletionServer server;
+	private String baseUrl;
+
+	@Before
+	public void setupTest() throws IOException {
+		server = new CompletionServer(new PrefixMatches(new RWayTrie<>()), new InetSocketAddress("localhost", 0));
+		server.start();
+		baseUrl = "http://localhost:" + server.getAddress().getPort();
+	}
+
+	@After
+	public void stopServer() {
+		server.stop(0);
+	}
+
+	@Test
+	public void test01Requests_shouldBeDelegatedToDictionary() throws IOException {
+		assertEquals("3", request("POST", "/add", "word world, works ab wordy"));
+		assertEquals("true", request("GET", "/contains?word=word", null));
+		assertEquals("false", request("GET", "/contains?word=ab", null));
+		assertEquals("word", request("GET", "/complete?prefix=wo&k=1", null));
+		assertEquals("word\nwordy\nworks", request("GET", "/complete?prefix=wor", null));
+		assertEquals("true", request("POST", "/delete?word=word", null));
+		assertEquals("false", request("POST", "/delete?word=word", null));
+		assertEquals("", request("GET", "/complete?prefix=zz", null));
+	}
+
+	@Test
+	public void test02InvalidRequests_shouldBeRejected() throws IOException {
+		assertEquals(400, status("GET", "/contains"));
+		assertEquals(400, status("GET", "/complete?prefix=ab&k=x"));
+		assertEquals(405, status("GET", "/delete?word=word"));
+		assertEquals(404, status("GET", "/complete/more?prefix=ab"));
+	}
+
+	@Test
+	public void test03RequestCoalescer_concurrentIdenticalRequests_shouldComputeOnce() throws Exception {
+		RequestCoalescer<String, Integer> coalescer = new RequestCoalescer<>();
+		AtomicInteger computations = new AtomicInteger();
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			Future<Integer> leader = executor.submit(() -> coalescer.execute("key", () -> {
+				computations.incrementAndGet();
+				started.countDown();
+				await(release);
+				return 42;
+			}));
+			started.await();
+			AtomicReference<Thread> followerThread = new AtomicReference<>();
+			CountDownLatch followerStarted = new CountDownLatch(1);
+			Future<Integer> follower = executor.submit(() -> {
+				followerThread.set(Thread.currentThread());
+				followerStarted.countDown();
+				return coalescer.execute("key", () -> {
+					computations.incrementAndGet();
+					return 0;
+				});
+			});
+			followerStarted.await();
+			// Follower parks only when it joins the in-flight computation
+			while (followerThread.get().getState() != Thread.State.WAITING) {
+				Thread.yield();
+			}
+			release.countDown();
+			assertEquals(Integer.valueOf(42), leader.get());
+			assertEquals(Integer.valueOf(42), follower.get());
+			assertEquals(1, computations.get());
+			assertEquals(0, coalescer.inFlight());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void test04FailedQueries_shouldBeAnsweredWithErrorStatus() throws IOException {
+		server.stop(0);
+		server = new CompletionServer(new PrefixMatches(new RWayTrie<>()) {
+			@Override
+			public QueryResult wordsWithPrefix(String pref, int k, QueryBudget budget) {
+				if (pref.equals("bad")) {
+					throw new CompletionException(new IllegalArgumentException("Invalid prefix"));
+				}
+				throw new IllegalStateException();
+			}
+		}, new InetSocketAddress("localhost", 0));
+		server.start();
+		baseUrl = "http://localhost:" + server.getAddress().getPort();
+		assertEquals(400, status("GET", "/complete?prefix=bad&k=1"));
+		assertEquals(500, status("GET", "/complete?prefix=abc&k=1"));
+		assertEquals(200, status("GET", "/contains?word=abc"));
+	}
+
+	@Test
+	public void test05TruncatedQueries_shouldBeFlaggedByHeader() throws IOException {
+		server.stop(0);
+		server = new CompletionServer(new PrefixMatches(new RWayTrie<>()) {
+			@Override
+			public QueryResult wordsWithPrefix(String pref, int k, QueryBudget budget) {
+				return new QueryResult(Arrays.asList(pref + "a", pref + "b"), 2, pref.equals("slow"));
+			}
+		}, new InetSocketAddress("localhost", 0));
+		server.start();
+		baseUrl = "http://localhost:" + server.getAddress().getPort();
+		HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + "/complete?prefix=slow&k=1")
+				.openConnection();
+		assertEquals(200, connection.getResponseCode());
+		assertEquals("true", connection.getHeaderField("X-Truncated"));
+		connection = (HttpURLConnection) new URL(baseUrl + "/complete?prefix=fast&k=1").openConnection();
+		assertEquals(200, connection.getResponseCode());
+		assertNull(connection.getHeaderField("X-Truncated"));
+		assertEquals("fasta\nfastb", request("GET", "/complete?prefix=fast&k=1", null));
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private String request(String method, String path, String body) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+		connection.setRequestMethod(method);
+		if (body != null) {
+			connection.setDoOutput(true);
+			try (OutputStream out = connection.getOutputStream()) {
+				out.write(body.getBytes(StandardCharsets.UTF_8));
+			}
+		}
+		assertEquals(200, connection.getResponseCode());
+		ByteArrayOutputStream response = new ByteArrayOutputStream();
+		try (InputStream in = connection.getInputStream()) {
+			byte[] buffer = new byte[1024];
+			for (int n = in.read(buffer); n != -1; n = in.read(buffer)) {
+				response.write(buffer, 0, n);
+			}
+		}
+		return new String(response.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	private int status(String method, String path) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+		connection.setRequestMethod(method);
+		return connection.getResponseCode();
+	}
+}
@@ -0,0 +1,149 @@
+package com.epam.lab.auto_completion.trie;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import com.epam.lab.auto_completion.trie.Trie.Tuple;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class BloomFilteredTrieTest {
+
+	private static final int PREFIX_LENGTH = 3;
+	private static final String ABSENT_SUFFIX = "qqzx";
+
+	private static Map<String, String> dic;
+	private RWayTrie<String> rWayTrie;
+	private BloomFilteredTrie<String> trie;
+
+	@BeforeClass
+	public static void setupDic() throws IOException {
+		dic = TestDictionary.load();
+	}
+
+	@Before
+	public void setupTest() {
+		rWayTrie = new RWayTrie<>();
+		trie = new BloomFilteredTrie<>(rWayTrie, dic.size(), PREFIX_LENGTH);
+		for (String str : dic.keySet()) {
+			trie.add(new Tuple<String>(str, dic.get(str)));
+		}
+	}
+
+	@Test
+	public void test01Contains_shouldHaveNoFalseNegatives() {
+		assertEquals(dic.size(), trie.size());
+		for (String str : dic.keySet()) {
+			assertTrue(trie.contains(str));
+		}
+		assertFalse(trie.contains(null));
+	}
+
+	@Test
+	public void test02Contains_absentWords_shouldNotContain() {
+		for (String str : dic.keySet()) {
+			assertEquals(dic.containsKey(str + ABSENT_SUFFIX), trie.contains(str + ABSENT_SUFFIX));
+		}
+	}
+
+	@Test
+	public void test03WordsWithPrefix_shouldMatchFilteredTrie() {
+		for (String str : dic.keySet()) {
+			assertEquals((List<String>) rWayTrie.wordsWithPrefix(str), (List<String>) trie.wordsWithPrefix(str));
+			assertEquals((List<String>) rWayTrie.wordsWithPrefix(str + ABSENT_SUFFIX),
+					(List<String>) trie.wordsWithPrefix(str + ABSENT_SUFFIX));
+		}
+	}
+
+	@Test
+	public void test04Delete_shouldNotContainAfterDelete() {
+		int count = dic.size();
+		for (String str : dic.keySet()) {
+			assertTrue(trie.delete(str));
+			assertFalse(trie.contains(str));
+			assertFalse(trie.delete(str));
+			assertEquals(--count, trie.size());
+		}
+	}
+
+	@Test
+	public void test05Constructor_filledTrie_shouldFilterExistingWords() {
+		trie = new BloomFilteredTrie<>(rWayTrie, dic.size(), PREFIX_LENGTH);
+		for (String str : dic.keySet()) {
+			assertTrue(trie.contains(str));
+			assertTrue(trie.wordsWithPrefix(str).iterator().hasNext());
+		}
+	}
+
+	@Test
+	public void test06CountingBloomFilter_removedValues_shouldBeRejected() {
+		CountingBloomFilter filter = new CountingBloomFilter(dic.size(), 0.01);
+		for (String str : dic.keySet()) {
+			filter.add(str);
+		}
+		for (String str : dic.keySet()) {
+			filter.remove(str);
+		}
+		for (String str : dic.keySet()) {
+			assertFalse(filter.mightContain(str));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void test07Constructor_nonPositiveExpectedWords_shouldThrowException() {
+		new BloomFilteredTrie<>(rWayTrie, 0, PREFIX_LENGTH);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void test08Constructor_nonPositivePrefixLength_shouldThrowException() {
+		new BloomFilteredTrie<>(rWayTrie, dic.size(), 0);
+	}
+
+	@Test
+	public void test09AddDelete_concurrentWriters_shouldHaveNoFalseNegatives() throws Exception {
+		trie = new BloomFilteredTrie<>(new RWayTrie<>(), dic.size(), PREFIX_LENGTH);
+		List<String> words = new ArrayList<>(dic.keySet());
+		int threads = 4;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				int first = t;
+				futures.add(executor.submit(() -> {
+					for (int round = 0; round < 10; round++) {
+						for (int i = first; i < words.size(); i += threads) {
+							trie.add(new Tuple<String>(words.get(i), dic.get(words.get(i))));
+						}
+						for (int i = first; i < words.size(); i += threads) {
+							if (round < 9 || i % (2 * threads) < threads) {
+								trie.delete(words.get(i));
+							}
+						}
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+		for (int i = 0; i < words.size(); i++) {
+			assertEquals(i % (2 * threads) >= threads, trie.contains(words.get(i)));
+		}
+	}
+}
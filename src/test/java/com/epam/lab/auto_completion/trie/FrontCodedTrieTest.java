@@ -0,0 +1,104 @@
+package com.epam.lab.auto_completion.trie;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import com.epam.lab.auto_completion.trie.Trie.Tuple;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class FrontCodedTrieTest {
+
+	private static final String EMPTY_STRING = "";
+
+	private static Map<String, String> dic;
+	private RWayTrie<String> rWayTrie;
+	private FrontCodedTrie<String> trie;
+
+	@BeforeClass
+	public static void setupDic() throws IOException {
+		dic = TestDictionary.load();
+	}
+
+	@Before
+	public void setupTest() {
+		rWayTrie = new RWayTrie<>();
+		for (String str : dic.keySet()) {
+			rWayTrie.add(new Tuple<String>(str, dic.get(str)));
+		}
+		trie = FrontCodedTrie.of(rWayTrie);
+	}
+
+	@Test
+	public void test01GetContains_shouldMatchSourceTrie() {
+		assertEquals(dic.size(), trie.size());
+		for (String str : dic.keySet()) {
+			assertTrue(trie.contains(str));
+			assertEquals(dic.get(str), trie.get(str));
+		}
+		assertFalse(trie.contains(null));
+		assertNull(trie.get("A"));
+	}
+
+	@Test
+	public void test02WordsWithPrefix_shouldMatchSourceTrieOrder() {
+		assertEquals(rWayTrie.words(), trie.words());
+		for (String str : dic.keySet()) {
+			assertEquals((List<String>) rWayTrie.wordsWithPrefix(str), (List<String>) trie.wordsWithPrefix(str));
+		}
+	}
+
+	@Test
+	public void test03Of_emptyTrie_shouldBeEmpty() {
+		trie = FrontCodedTrie.of(new RWayTrie<String>());
+		assertEquals(0, trie.size());
+		assertFalse(trie.words().iterator().hasNext());
+		assertFalse(trie.contains(EMPTY_STRING));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void test04Add_shouldThrowException() {
+		trie.add(new Tuple<String>("word", EMPTY_STRING));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void test05Delete_shouldThrowException() {
+		trie.delete(dic.keySet().iterator().next());
+	}
+
+	@Test
+	public void test06Query_shouldMatchSourceTrie() {
+		for (String str : dic.keySet()) {
+			String prefix = str.substring(0, Math.min(2, str.length()));
+			for (TrieQuery.Order order : TrieQuery.Order.values()) {
+				TrieQuery query = new TrieQuery(prefix, order);
+				query.setMinLength(3);
+				query.setOffset(2);
+				query.setLimit(5);
+				QueryResult expected = rWayTrie.query(query);
+				QueryResult actual = trie.query(query);
+				assertEquals(expected.getWords(), actual.getWords());
+				assertEquals(expected.getCount(), actual.getCount());
+			}
+			assertEquals(rWayTrie.countWithPrefix(prefix), trie.countWithPrefix(prefix));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void test07Constructor_unsortedKeys_shouldThrowException() {
+		new FrontCodedTrie<>(Arrays.asList(new Tuple<String>("word", EMPTY_STRING),
+				new Tuple<String>("wood", EMPTY_STRING)));
+	}
+}
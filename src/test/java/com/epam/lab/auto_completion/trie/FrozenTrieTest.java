@@ -0,0 +1,79 @@
+package com.epam.lab.auto_completion.trie;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import com.epam.lab.auto_completion.trie.Trie.Tuple;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class FrozenTrieTest {
+
+	private static final String EMPTY_STRING = "";
+
+	private static Map<String, String> dic;
+	private RWayTrie<String> rWayTrie;
+	private FrozenTrie<String> trie;
+
+	@BeforeClass
+	public static void setupDic() throws IOException {
+		dic = TestDictionary.load();
+	}
+
+	@Before
+	public void setupTest() {
+		rWayTrie = new RWayTrie<>();
+		for (String str : dic.keySet()) {
+			rWayTrie.add(new Tuple<String>(str, dic.get(str)));
+		}
+		trie = rWayTrie.freeze();
+	}
+
+	@Test
+	public void test01GetContains_shouldMatchSourceTrie() {
+		assertEquals(dic.size(), trie.size());
+		for (String str : dic.keySet()) {
+			assertTrue(trie.contains(str));
+			assertEquals(dic.get(str), trie.get(str));
+		}
+		assertFalse(trie.contains(null));
+		assertNull(trie.get("A"));
+	}
+
+	@Test
+	public void test02WordsWithPrefix_shouldMatchSourceTrieOrder() {
+		assertEquals(rWayTrie.words(), trie.words());
+		for (String str : dic.keySet()) {
+			assertEquals((List<String>) rWayTrie.wordsWithPrefix(str), (List<String>) trie.wordsWithPrefix(str));
+		}
+	}
+
+	@Test
+	public void test03Freeze_emptyTrie_shouldBeEmpty() {
+		trie = new RWayTrie<String>().freeze();
+		assertEquals(0, trie.size());
+		assertFalse(trie.words().iterator().hasNext());
+		assertFalse(trie.contains(EMPTY_STRING));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void test04Add_shouldThrowException() {
+		trie.add(new Tuple<String>("word", EMPTY_STRING));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void test05Delete_shouldThrowException() {
+		trie.delete(dic.keySet().iterator().next());
+	}
+}
@@ -0,0 +1,164 @@
+package com.epam.lab.auto_completion.trie;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import com.epam.lab.auto_completion.trie.Trie.Tuple;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class LayeredTrieTest {
+
+	private static final String EMPTY_STRING = "";
+
+	private static Map<String, String> dic;
+	private RWayTrie<String> reference;
+	private LayeredTrie<String> trie;
+
+	@BeforeClass
+	public static void setupDic() throws IOException {
+		dic = TestDictionary.load();
+	}
+
+	@Before
+	public void setupTest() {
+		reference = new RWayTrie<>();
+		for (String str : dic.keySet()) {
+			reference.add(new Tuple<String>(str, dic.get(str)));
+		}
+		trie = new LayeredTrie<>(reference.freeze());
+	}
+
+	@Test
+	public void test01NoChanges_shouldMatchBase() {
+		assertEquals(dic.size(), trie.size());
+		assertEquals(reference.words(), trie.words());
+		assertTrue(trie.getTombstones().isEmpty());
+		assertEquals(0, trie.getDelta().size());
+	}
+
+	@Test
+	public void test02AddDelete_shouldMatchReferenceTrie() {
+		List<String> words = new ArrayList<>(dic.keySet());
+		for (int i = 0; i < words.size(); i += 3) {
+			assertTrue(trie.delete(words.get(i)));
+			reference.delete(words.get(i));
+		}
+		for (int i = 0; i < words.size(); i += 6) {
+			String word = words.get(i);
+			trie.add(new Tuple<String>(word, dic.get(word)));
+			reference.add(new Tuple<String>(word, dic.get(word)));
+			trie.add(new Tuple<String>(word + "x", dic.get(word)));
+			reference.add(new Tuple<String>(word + "x", dic.get(word)));
+		}
+		assertFalse(trie.delete(words.get(3)));
+		assertEquals(reference.size(), trie.size());
+		for (String str : dic.keySet()) {
+			assertEquals(reference.contains(str), trie.contains(str));
+			assertEquals(reference.wordsWithPrefix(str), trie.wordsWithPrefix(str));
+		}
+		assertEquals(reference.words(), trie.words());
+	}
+
+	@Test
+	public void test03EstimatedBytes_shouldGrowWithChanges() {
+		long initial = trie.estimatedBytes();
+		int modCount = trie.getModCount();
+		trie.add(new Tuple<String>("zzzzzz", EMPTY_STRING));
+		trie.delete(dic.keySet().iterator().next());
+		assertTrue(trie.estimatedBytes() > initial);
+		assertEquals(modCount + 2, trie.getModCount());
+	}
+
+	@Test
+	public void test04Add_invalidKey_shouldNotChangeTrie() {
+		trie.add(new Tuple<String>("A", EMPTY_STRING));
+		assertEquals(dic.size(), trie.size());
+		assertEquals(0, trie.getModCount());
+	}
+
+	@Test
+	public void test05Query_changedTrie_shouldMatchReferenceTrie() {
+		List<String> words = new ArrayList<>(dic.keySet());
+		for (int i = 0; i < words.size(); i += 4) {
+			trie.delete(words.get(i));
+			reference.delete(words.get(i));
+		}
+		for (int i = 0; i < words.size(); i += 8) {
+			String word = words.get(i) + "y";
+			trie.add(new Tuple<String>(word, EMPTY_STRING));
+			reference.add(new Tuple<String>(word, EMPTY_STRING));
+		}
+		for (String str : dic.keySet()) {
+			String prefix = str.substring(0, Math.min(2, str.length()));
+			for (TrieQuery.Order order : TrieQuery.Order.values()) {
+				TrieQuery query = new TrieQuery(prefix, order);
+				query.setMinLength(3);
+				query.setOffset(1);
+				query.setLimit(4);
+				query.setLengthSets(2);
+				QueryResult expected = reference.query(query);
+				QueryResult actual = trie.query(query);
+				assertEquals(expected.getWords(), actual.getWords());
+				assertEquals(expected.getCount(), actual.getCount());
+			}
+			assertEquals(reference.countWithPrefix(prefix), trie.countWithPrefix(prefix));
+			assertEquals(reference.shortestWithPrefix(prefix, 3), trie.shortestWithPrefix(prefix, 3));
+			assertEquals(reference.wordsWithPrefix(prefix, 2, 3), trie.wordsWithPrefix(prefix, 2, 3));
+		}
+	}
+
+	@Test
+	public void test06Query_lengthOrder_shouldNotMaterializeBaseRange() {
+		FrozenTrie<String> frozen = reference.freeze();
+		trie = new LayeredTrie<>(new Trie<String>() {
+			public void add(Tuple<String> tuple) {
+				throw new UnsupportedOperationException();
+			}
+
+			public boolean contains(String word) {
+				return frozen.contains(word);
+			}
+
+			public boolean delete(String word) {
+				throw new UnsupportedOperationException();
+			}
+
+			public Iterable<String> words() {
+				throw new AssertionError("Base range materialized");
+			}
+
+			public Iterable<String> wordsWithPrefix(String pref) {
+				throw new AssertionError("Base range materialized");
+			}
+
+			public QueryResult query(TrieQuery query) {
+				return frozen.query(query);
+			}
+
+			public int size() {
+				return frozen.size();
+			}
+		});
+		String word = reference.shortestWithPrefix(EMPTY_STRING, 1).iterator().next();
+		assertTrue(trie.delete(word));
+		reference.delete(word);
+		trie.add(new Tuple<String>("zz", EMPTY_STRING));
+		reference.add(new Tuple<String>("zz", EMPTY_STRING));
+		for (char c = 'a'; c <= 'z'; c++) {
+			String prefix = String.valueOf(c);
+			assertEquals(reference.shortestWithPrefix(prefix, 5), trie.shortestWithPrefix(prefix, 5));
+		}
+	}
+}
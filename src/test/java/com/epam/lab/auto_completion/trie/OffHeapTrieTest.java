@@ -0,0 +1,133 @@
+package com.epam.lab.auto_completion.trie;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import com.epam.lab.auto_completion.trie.Trie.Tuple;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class OffHeapTrieTest {
+
+	private static final String EMPTY_STRING = "";
+
+	private static Map<String, Integer> dic;
+	private RWayTrie<Integer> rWayTrie;
+	private OffHeapTrie trie;
+
+	@BeforeClass
+	public static void setupDic() throws IOException {
+		dic = new HashMap<>();
+		for (Map.Entry<String, String> entry : TestDictionary.load().entrySet()) {
+			dic.put(entry.getKey(), Integer.valueOf(entry.getValue()));
+		}
+	}
+
+	@Before
+	public void setupTest() {
+		rWayTrie = new RWayTrie<>();
+		trie = new OffHeapTrie();
+		for (String str : dic.keySet()) {
+			rWayTrie.add(new Tuple<Integer>(str, dic.get(str)));
+			trie.add(new Tuple<Integer>(str, dic.get(str)));
+		}
+	}
+
+	@After
+	public void closeTrie() {
+		trie.close();
+	}
+
+	@Test
+	public void test01GetContains_shouldGetCorrectValues() {
+		assertEquals(dic.size(), trie.size());
+		for (String str : dic.keySet()) {
+			assertTrue(trie.contains(str));
+			assertEquals(dic.get(str), trie.get(str));
+		}
+		assertFalse(trie.contains(null));
+		assertFalse(trie.contains("a{"));
+		assertNull(trie.get("A"));
+	}
+
+	@Test
+	public void test02WordsWithPrefix_shouldMatchRWayTrie() {
+		assertEquals(rWayTrie.words(), trie.words());
+		for (String str : dic.keySet()) {
+			assertEquals((List<String>) rWayTrie.wordsWithPrefix(str), (List<String>) trie.wordsWithPrefix(str));
+			assertEquals(rWayTrie.countWithPrefix(str), trie.countWithPrefix(str));
+		}
+	}
+
+	@Test
+	public void test03Delete_shouldNotContainAfterDelete() {
+		int count = dic.size();
+		for (String str : dic.keySet()) {
+			assertTrue(trie.delete(str));
+			assertFalse(trie.contains(str));
+			assertFalse(trie.delete(str));
+			assertEquals(--count, trie.size());
+			assertEquals(count, trie.countWithPrefix(EMPTY_STRING));
+		}
+		assertFalse(trie.words().iterator().hasNext());
+	}
+
+	@Test
+	public void test04DeleteAdd_shouldReuseFreeNodes() {
+		long allocated = trie.allocatedBytes();
+		for (int cycle = 0; cycle < 3; cycle++) {
+			for (String str : dic.keySet()) {
+				trie.delete(str);
+			}
+			for (String str : dic.keySet()) {
+				trie.add(new Tuple<Integer>(str, dic.get(str)));
+			}
+		}
+		assertEquals(allocated, trie.allocatedBytes());
+		for (String str : dic.keySet()) {
+			assertEquals(dic.get(str), trie.get(str));
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void test05Close_shouldRejectCalls() {
+		trie.close();
+		trie.contains(EMPTY_STRING);
+	}
+
+	@Test
+	public void test06Close_shouldFreeOffHeapMemory() {
+		BufferPoolMXBean directPool = null;
+		for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+			if ("direct".equals(pool.getName())) {
+				directPool = pool;
+			}
+		}
+		long allocated = trie.allocatedBytes();
+		long used = directPool.getMemoryUsed();
+		trie.close();
+		assertTrue(used - directPool.getMemoryUsed() >= allocated);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void test07Close_allocatedBytes_shouldThrowException() {
+		trie.close();
+		trie.close();
+		trie.allocatedBytes();
+	}
+}
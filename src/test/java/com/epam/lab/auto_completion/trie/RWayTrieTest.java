@@ -1,240 +1,665 @@
-package com.epam.lab.auto_completion.trie;
-
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertFalse;
-import static org.junit.Assert.assertTrue;
-
-import java.io.File;
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Scanner;
-
-import org.junit.Before;
-import org.junit.BeforeClass;
-import org.junit.FixMethodOrder;
-import org.junit.Test;
-import org.junit.runners.MethodSorters;
-
-import com.epam.lab.auto_completion.trie.Trie.Tuple;
-
-@FixMethodOrder(MethodSorters.NAME_ASCENDING)
-public class RWayTrieTest {
-
-	private static final String DIC_FILEPATH = "src/test/resources/dic.txt";
-	private static final String DELIMITER_REGEX = "\\s(?=[a-z])";
-	private static final int ALPHABET_LENGTH = 26;
-	private static final int ALPHABET_FIRST_LETTER_ASCII = 97;
-	private static final int ASCII_END = 255;
-	private static final String EMPTY_STRING = "";
-
-	private static Map<String, String> dic;
-	private RWayTrie<String> trie;
-
-	@BeforeClass
-	public static void setupDic() throws IOException {
-		Scanner scanner = new Scanner(new File(DIC_FILEPATH));
-		dic = new HashMap<>();
-		String[] wordAr;
-		try {
-			while (scanner.hasNextLine()) {
-				wordAr = scanner.nextLine().split(DELIMITER_REGEX);
-				dic.put(wordAr[1].trim(), wordAr[0].trim());
-			}
-		} finally {
-			scanner.close();
-		}
-	}
-
-	@Before
-	public void setupTest() {
-		trie = new RWayTrie<>();
-		for (String str : dic.keySet()) {
-			trie.add(new Tuple<String>(str, dic.get(str)));
-		}
-	}
-
-	@Test
-	public void test01GetAdd_shouldGetCorrectValues() {
-		for (String str : dic.keySet()) {
-			assertEquals(dic.get(str), trie.get(str));
-		}
-	}
-
-	@Test
-	public void test02AddSize_shouldIncreseSizeOnAddCall() {
-		assertEquals(dic.size(), trie.size());
-		trie = new RWayTrie<>();
-		assertEquals(0, trie.size());
-		int count = 0;
-		for (String str : dic.keySet()) {
-			trie.add(new Tuple<String>(str, EMPTY_STRING));
-			assertEquals(++count, trie.size());
-		}
-	}
-
-	@Test
-	public void test03Size_emptyTrie_shouldBeZero() {
-		trie = new RWayTrie<>();
-		assertEquals(0, trie.size());
-	}
-
-	@SuppressWarnings({ "unchecked", "rawtypes" })
-	@Test
-	public void test04Add_invalidTuple_shouldNotIncreaseSize() {
-		int alphHiBorder = ALPHABET_FIRST_LETTER_ASCII + ALPHABET_LENGTH;
-		for (char c = 0; c <= ASCII_END; c++) {
-			if (c <= alphHiBorder && c >= ALPHABET_FIRST_LETTER_ASCII) {
-				continue;
-			}
-			trie.add(new Tuple(String.valueOf(c), EMPTY_STRING));
-			assertEquals(dic.size(), trie.size());
-		}
-		trie.add(new Tuple(null, EMPTY_STRING));
-		assertEquals(dic.size(), trie.size());
-		trie.add(new Tuple(EMPTY_STRING, null));
-		assertEquals(dic.size(), trie.size());
-	}
-
-	@Test
-	public void test05Contains_correctInput_shouldContain() {
-		for (String str : dic.keySet()) {
-			assertTrue(trie.contains(str));
-		}
-	}
-
-	@Test
-	public void test06Contains_invalidInput_alwaysShouldNotContain() {
-		int alphHiBorder = ALPHABET_FIRST_LETTER_ASCII + ALPHABET_LENGTH;
-		for (char c = 0; c <= ASCII_END; c++) {
-			if (c <= alphHiBorder && c >= ALPHABET_FIRST_LETTER_ASCII) {
-				continue;
-			}
-			assertFalse(trie.contains(String.valueOf(c)));
-		}
-		assertFalse(trie.contains(null));
-	}
-
-	@Test
-	public void test07Delete_correctInput_shouldNotContainAfterDelete() {
-		for (String str : dic.keySet()) {
-			assertTrue(trie.contains(str));
-			trie.delete(str);
-			assertFalse(trie.contains(str));
-		}
-	}
-
-	@Test
-	public void test08DeleteSize_correctInput_shouldDecreaseSizeOnDeleteCall() {
-		int count = dic.size();
-		for (String str : dic.keySet()) {
-			trie.delete(str);
-			assertEquals(--count, trie.size());
-		}
-	}
-
-	@Test
-	public void test09Delete_invalidInput_alwaysShouldNotDelete() {
-		int alphHiBorder = ALPHABET_FIRST_LETTER_ASCII + ALPHABET_LENGTH;
-		for (char c = 0; c <= ASCII_END; c++) {
-			if (c <= alphHiBorder && c >= ALPHABET_FIRST_LETTER_ASCII) {
-				continue;
-			}
-			assertFalse(trie.contains(String.valueOf(c)));
-			trie.delete(String.valueOf(c));
-			assertEquals(dic.size(), trie.size());
-		}
-		trie.delete(null);
-		assertEquals(dic.size(), trie.size());
-	}
-
-	@Test
-	public void test10Delete_emptyTrie_shouldNotDeleteOrThrowException() {
-		trie = new RWayTrie<>();
-		try {
-			for (String str : dic.keySet()) {
-				trie.delete(str);
-				assertEquals(0, trie.size());
-			}
-		} catch (Exception ex) {
-			throw new AssertionError();
-		}
-	}
-
-	@Test
-	public void test11Delete_emptyTrie_incorrectInput_shouldNotDeleteOrThrowException() {
-		trie = new RWayTrie<>();
-		int alphHiBorder = ALPHABET_FIRST_LETTER_ASCII + ALPHABET_LENGTH;
-		try {
-			for (char c = 0; c <= ASCII_END; c++) {
-				if (c <= alphHiBorder && c >= ALPHABET_FIRST_LETTER_ASCII) {
-					continue;
-				}
-				trie.delete(String.valueOf(c));
-				assertEquals(0, trie.size());
-			}
-			trie.delete(null);
-			assertEquals(0, trie.size());
-		} catch (Exception ex) {
-			throw new AssertionError();
-		}
-	}
-
-	@Test
-	public void test12Words_shouldFindAllReferenceWords() {
-		List<String> toCheckList = (List<String>) trie.words();
-		assertEquals(dic.size(), toCheckList.size());
-		List<String> refList = new ArrayList<>(dic.keySet());
-		Collections.sort(refList);
-		Collections.sort(toCheckList);
-		for (int i = 0; i < refList.size(); i++) {
-			assertEquals(refList.get(i), toCheckList.get(i));
-		}
-	}
-
-	@Test
-	public void test13Words_emptyTrie_shouldReturnEmptyData() {
-		trie = new RWayTrie<>();
-		List<String> toCheckList = (List<String>) trie.words();
-		assertEquals(0, toCheckList.size());
-	}
-
-	@Test
-	public void test14WordsWithPrefix_oneLetterPrefixWordsFromRefListShouldBeSame() {
-		List<String> refList = new ArrayList<>(dic.keySet());
-		List<String> refPrefixList = new ArrayList<>();
-		Collections.sort(refList);
-		String prefix = refList.get(0);
-		for (String str : refList) {
-			if (str.indexOf(prefix) == 0) {
-				refPrefixList.add(str);
-			} else {
-				List<String> toCheckList = (List<String>) trie.wordsWithPrefix(prefix);
-				Collections.sort(toCheckList);
-				assertEquals(refPrefixList.size(), toCheckList.size());
-				for (int i = 0; i < refPrefixList.size(); i++) {
-					assertEquals(refPrefixList.get(i), toCheckList.get(i));
-				}
-				refPrefixList.clear();
-				refPrefixList.add(prefix = str);
-			}
-		}
-	}
-
-	@Test
-	public void test15WordsWithPrefix_invalidInput_alwaysShouldReturnEmptyData() {
-		List<String> toCheck = (List<String>) trie.wordsWithPrefix(null);
-		assertEquals(0, toCheck.size());
-		int alphHiBorder = ALPHABET_FIRST_LETTER_ASCII + ALPHABET_LENGTH;
-		for (char c = 0; c <= ASCII_END; c++) {
-			if (c <= alphHiBorder && c >= ALPHABET_FIRST_LETTER_ASCII) {
-				continue;
-			}
-			toCheck = (List<String>) trie.wordsWithPrefix(String.valueOf(c));
-			assertEquals(0, toCheck.size());
-		}
-	}
-}
+package com.epam.lab.auto_completion.trie;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import com.epam.lab.auto_completion.trie.Trie.Tuple;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class RWayTrieTest {
+
+	private static final String DIC_FILEPATH = "src/test/resources/dic.txt";
+	private static final String DELIMITER_REGEX = "\\s(?=[a-z])";
+	private static final int ALPHABET_LENGTH = 26;
+	private static final int ALPHABET_FIRST_LETTER_ASCII = 97;
+	private static final int ASCII_END = 255;
+	private static final String EMPTY_STRING = "";
+
+	private static Map<String, String> dic;
+	private RWayTrie<String> trie;
+
+	@BeforeClass
+	public static void setupDic() throws IOException {
+		Scanner scanner = new Scanner(new File(DIC_FILEPATH));
+		dic = new HashMap<>();
+		String[] wordAr;
+		try {
+			while (scanner.hasNextLine()) {
+				wordAr = scanner.nextLine().split(DELIMITER_REGEX);
+				dic.put(wordAr[1].trim(), wordAr[0].trim());
+			}
+		} finally {
+			scanner.close();
+		}
+	}
+
+	@Before
+	public void setupTest() {
+		trie = new RWayTrie<>();
+		for (String str : dic.keySet()) {
+			trie.add(new Tuple<String>(str, dic.get(str)));
+		}
+	}
+
+	@Test
+	public void test01GetAdd_shouldGetCorrectValues() {
+		for (String str : dic.keySet()) {
+			assertEquals(dic.get(str), trie.get(str));
+		}
+	}
+
+	@Test
+	public void test02AddSize_shouldIncreseSizeOnAddCall() {
+		assertEquals(dic.size(), trie.size());
+		trie = new RWayTrie<>();
+		assertEquals(0, trie.size());
+		int count = 0;
+		for (String str : dic.keySet()) {
+			trie.add(new Tuple<String>(str, EMPTY_STRING));
+			assertEquals(++count, trie.size());
+		}
+	}
+
+	@Test
+	public void test03Size_emptyTrie_shouldBeZero() {
+		trie = new RWayTrie<>();
+		assertEquals(0, trie.size());
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void test04Add_invalidTuple_shouldNotIncreaseSize() {
+		int alphHiBorder = ALPHABET_FIRST_LETTER_ASCII + ALPHABET_LENGTH;
+		for (char c = 0; c <= ASCII_END; c++) {
+			if (c <= alphHiBorder && c >= ALPHABET_FIRST_LETTER_ASCII) {
+				continue;
+			}
+			trie.add(new Tuple(String.valueOf(c), EMPTY_STRING));
+			assertEquals(dic.size(), trie.size());
+		}
+		trie.add(new Tuple(null, EMPTY_STRING));
+		assertEquals(dic.size(), trie.size());
+		trie.add(new Tuple(EMPTY_STRING, null));
+		assertEquals(dic.size(), trie.size());
+	}
+
+	@Test
+	public void test05Contains_correctInput_shouldContain() {
+		for (String str : dic.keySet()) {
+			assertTrue(trie.contains(str));
+		}
+	}
+
+	@Test
+	public void test06Contains_invalidInput_alwaysShouldNotContain() {
+		int alphHiBorder = ALPHABET_FIRST_LETTER_ASCII + ALPHABET_LENGTH;
+		for (char c = 0; c <= ASCII_END; c++) {
+			if (c <= alphHiBorder && c >= ALPHABET_FIRST_LETTER_ASCII) {
+				continue;
+			}
+			assertFalse(trie.contains(String.valueOf(c)));
+		}
+		assertFalse(trie.contains(null));
+	}
+
+	@Test
+	public void test07Delete_correctInput_shouldNotContainAfterDelete() {
+		for (String str : dic.keySet()) {
+			assertTrue(trie.contains(str));
+			trie.delete(str);
+			assertFalse(trie.contains(str));
+		}
+	}
+
+	@Test
+	public void test08DeleteSize_correctInput_shouldDecreaseSizeOnDeleteCall() {
+		int count = dic.size();
+		for (String str : dic.keySet()) {
+			trie.delete(str);
+			assertEquals(--count, trie.size());
+		}
+	}
+
+	@Test
+	public void test09Delete_invalidInput_alwaysShouldNotDelete() {
+		int alphHiBorder = ALPHABET_FIRST_LETTER_ASCII + ALPHABET_LENGTH;
+		for (char c = 0; c <= ASCII_END; c++) {
+			if (c <= alphHiBorder && c >= ALPHABET_FIRST_LETTER_ASCII) {
+				continue;
+			}
+			assertFalse(trie.contains(String.valueOf(c)));
+			trie.delete(String.valueOf(c));
+			assertEquals(dic.size(), trie.size());
+		}
+		trie.delete(null);
+		assertEquals(dic.size(), trie.size());
+	}
+
+	@Test
+	public void test10Delete_emptyTrie_shouldNotDeleteOrThrowException() {
+		trie = new RWayTrie<>();
+		try {
+			for (String str : dic.keySet()) {
+				trie.delete(str);
+				assertEquals(0, trie.size());
+			}
+		} catch (Exception ex) {
+			throw new AssertionError();
+		}
+	}
+
+	@Test
+	public void test11Delete_emptyTrie_incorrectInput_shouldNotDeleteOrThrowException() {
+		trie = new RWayTrie<>();
+		int alphHiBorder = ALPHABET_FIRST_LETTER_ASCII + ALPHABET_LENGTH;
+		try {
+			for (char c = 0; c <= ASCII_END; c++) {
+				if (c <= alphHiBorder && c >= ALPHABET_FIRST_LETTER_ASCII) {
+					continue;
+				}
+				trie.delete(String.valueOf(c));
+				assertEquals(0, trie.size());
+			}
+			trie.delete(null);
+			assertEquals(0, trie.size());
+		} catch (Exception ex) {
+			throw new AssertionError();
+		}
+	}
+
+	@Test
+	public void test12Words_shouldFindAllReferenceWords() {
+		List<String> toCheckList = (List<String>) trie.words();
+		assertEquals(dic.size(), toCheckList.size());
+		List<String> refList = new ArrayList<>(dic.keySet());
+		Collections.sort(refList);
+		Collections.sort(toCheckList);
+		for (int i = 0; i < refList.size(); i++) {
+			assertEquals(refList.get(i), toCheckList.get(i));
+		}
+	}
+
+	@Test
+	public void test13Words_emptyTrie_shouldReturnEmptyData() {
+		trie = new RWayTrie<>();
+		List<String> toCheckList = (List<String>) trie.words();
+		assertEquals(0, toCheckList.size());
+	}
+
+	@Test
+	public void test14WordsWithPrefix_oneLetterPrefixWordsFromRefListShouldBeSame() {
+		List<String> refList = new ArrayList<>(dic.keySet());
+		List<String> refPrefixList = new ArrayList<>();
+		Collections.sort(refList);
+		String prefix = refList.get(0);
+		for (String str : refList) {
+			if (str.indexOf(prefix) == 0) {
+				refPrefixList.add(str);
+			} else {
+				List<String> toCheckList = (List<String>) trie.wordsWithPrefix(prefix);
+				Collections.sort(toCheckList);
+				assertEquals(refPrefixList.size(), toCheckList.size());
+				for (int i = 0; i < refPrefixList.size(); i++) {
+					assertEquals(refPrefixList.get(i), toCheckList.get(i));
+				}
+				refPrefixList.clear();
+				refPrefixList.add(prefix = str);
+			}
+		}
+	}
+
+	@Test
+	public void test15WordsWithPrefix_invalidInput_alwaysShouldReturnEmptyData() {
+		List<String> toCheck = (List<String>) trie.wordsWithPrefix(null);
+		assertEquals(0, toCheck.size());
+		int alphHiBorder = ALPHABET_FIRST_LETTER_ASCII + ALPHABET_LENGTH;
+		for (char c = 0; c <= ASCII_END; c++) {
+			if (c <= alphHiBorder && c >= ALPHABET_FIRST_LETTER_ASCII) {
+				continue;
+			}
+			toCheck = (List<String>) trie.wordsWithPrefix(String.valueOf(c));
+			assertEquals(0, toCheck.size());
+		}
+	}
+
+	@Test
+	public void test16Compact_shouldKeepAllMappings() {
+		trie.compact();
+		assertEquals(dic.size(), trie.size());
+		for (String str : dic.keySet()) {
+			assertEquals(dic.get(str), trie.get(str));
+		}
+	}
+
+	@Test
+	public void test17CompactAsync_notModifiedTrie_shouldReplaceAndKeepAllMappings() throws Exception {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			assertTrue(trie.compactAsync(executor).get());
+		} finally {
+			executor.shutdown();
+		}
+		for (String str : dic.keySet()) {
+			assertEquals(dic.get(str), trie.get(str));
+		}
+	}
+
+	@Test
+	public void test18NodePool_addDeleteCycle_shouldKeepMappings() {
+		trie.setNodePoolCapacity(1024);
+		List<String> words = new ArrayList<>(dic.keySet());
+		for (int cycle = 0; cycle < 3; cycle++) {
+			for (String str : words) {
+				assertTrue(trie.delete(str));
+			}
+			assertEquals(0, trie.size());
+			for (String str : words) {
+				trie.add(new Tuple<String>(str, dic.get(str)));
+			}
+			assertEquals(dic.size(), trie.size());
+		}
+		for (String str : words) {
+			assertEquals(dic.get(str), trie.get(str));
+		}
+	}
+
+	@Test
+	public void test19Delete_absentKeyWithDescendants_shouldKeepDescendants() {
+		trie = new RWayTrie<>();
+		trie.add(new Tuple<String>("abc", EMPTY_STRING));
+		assertFalse(trie.delete("ab"));
+		assertTrue(trie.contains("abc"));
+		assertEquals(1, trie.size());
+	}
+
+	@Test
+	public void test20Stream_shouldStreamAllWordsInLexicographicOrder() {
+		List<String> refList = new ArrayList<>(dic.keySet());
+		Collections.sort(refList);
+		assertEquals(refList, trie.stream().collect(Collectors.toList()));
+	}
+
+	@Test
+	public void test21ParallelStream_shouldKeepEncounterOrder() {
+		List<String> refList = trie.stream().collect(Collectors.toList());
+		assertEquals(refList, trie.stream().parallel().collect(Collectors.toList()));
+		assertEquals(dic.size(), trie.stream().parallel().count());
+	}
+
+	@Test
+	public void test22StreamPrefix_shouldStreamSameWordsAsWordsWithPrefix() {
+		for (String str : dic.keySet()) {
+			List<String> refList = (List<String>) trie.wordsWithPrefix(str);
+			Collections.sort(refList);
+			assertEquals(refList, trie.stream(str).parallel().collect(Collectors.toList()));
+		}
+		assertEquals(0, trie.stream(null).count());
+	}
+
+	@Test
+	public void test23CountWithPrefix_shouldMatchWordsWithPrefixSize() {
+		for (String str : dic.keySet()) {
+			assertEquals(((List<String>) trie.wordsWithPrefix(str)).size(), trie.countWithPrefix(str));
+		}
+		assertEquals(dic.size(), trie.countWithPrefix(EMPTY_STRING));
+		assertEquals(0, trie.countWithPrefix(null));
+	}
+
+	@Test
+	public void test24CountWithPrefix_afterDelete_shouldDecrease() {
+		int count = dic.size();
+		for (String str : dic.keySet()) {
+			trie.delete(str);
+			assertEquals(--count, trie.countWithPrefix(EMPTY_STRING));
+		}
+	}
+
+	@Test
+	public void test25WordsWithPrefixPage_shouldMatchSortedSubList() {
+		List<String> refList = new ArrayList<>(dic.keySet());
+		Collections.sort(refList);
+		int pageSize = 7;
+		for (int offset = 0; offset < refList.size() + pageSize; offset += pageSize) {
+			List<String> page = (List<String>) trie.wordsWithPrefix(EMPTY_STRING, offset, pageSize);
+			int from = Math.min(offset, refList.size());
+			assertEquals(refList.subList(from, Math.min(offset + pageSize, refList.size())), page);
+		}
+		for (String str : dic.keySet()) {
+			List<String> refPrefixList = (List<String>) trie.wordsWithPrefix(str);
+			Collections.sort(refPrefixList);
+			int from = Math.min(1, refPrefixList.size());
+			assertEquals(refPrefixList.subList(from, Math.min(from + 3, refPrefixList.size())),
+					trie.wordsWithPrefix(str, 1, 3));
+		}
+	}
+
+	@Test
+	public void test26Add_existingKey_shouldReplaceValueAndKeepSize() {
+		for (String str : dic.keySet()) {
+			trie.add(new Tuple<String>(str, EMPTY_STRING));
+			assertEquals(EMPTY_STRING, trie.get(str));
+		}
+		assertEquals(dic.size(), trie.size());
+		assertEquals(dic.size(), trie.countWithPrefix(EMPTY_STRING));
+	}
+
+	@Test
+	public void test27ShortestWithPrefix_shouldReturnHeadOfWordsWithPrefix() {
+		for (String str : dic.keySet()) {
+			assertShortestWithPrefix(str.substring(0, Math.min(2, str.length())), 5);
+		}
+	}
+
+	@Test
+	public void test28HotPrefixes_addDelete_shouldKeepShortestWords() {
+		int depth = 2;
+		int size = 4;
+		trie.setHotPrefixes(depth, size);
+		List<String> words = new ArrayList<>(dic.keySet());
+		for (int i = 0; i < words.size(); i += 2) {
+			trie.delete(words.get(i));
+		}
+		for (int i = 0; i < words.size(); i += 4) {
+			trie.add(new Tuple<String>(words.get(i), dic.get(words.get(i))));
+		}
+		for (String str : dic.keySet()) {
+			for (int len = 1; len <= Math.min(depth, str.length()); len++) {
+				assertShortestWithPrefix(str.substring(0, len), size);
+				assertShortestWithPrefix(str.substring(0, len), size - 1);
+			}
+		}
+		trie.setHotPrefixes(0, 0);
+		for (String str : dic.keySet()) {
+			assertShortestWithPrefix(str.substring(0, Math.min(depth, str.length())), size);
+		}
+	}
+
+	private void assertShortestWithPrefix(String prefix, int limit) {
+		List<String> refList = (List<String>) trie.wordsWithPrefix(prefix);
+		refList = refList.subList(0, Math.min(limit, refList.size()));
+		assertEquals(refList, trie.shortestWithPrefix(prefix, limit));
+	}
+
+	@Test
+	public void test29Query_shouldMatchDefaultSelection() {
+		trie.setHotPrefixes(1, 6);
+		FrozenTrie<String> reference = trie.freeze();
+		for (String str : dic.keySet()) {
+			String prefix = str.substring(0, Math.min(2, str.length()));
+			for (TrieQuery.Order order : TrieQuery.Order.values()) {
+				for (int minLength = 0; minLength <= 4; minLength += 2) {
+					TrieQuery query = new TrieQuery(prefix, order);
+					query.setMinLength(minLength);
+					query.setOffset(minLength);
+					query.setLimit(5 + minLength);
+					query.setLengthSets(1 + minLength / 2);
+					QueryResult expected = reference.query(query);
+					QueryResult actual = trie.query(query);
+					assertEquals(expected.getWords(), actual.getWords());
+					assertEquals(expected.getCount(), actual.getCount());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void test30RecordSelection_concurrent_shouldRankAndDecay() throws Exception {
+		List<String> words = new ArrayList<>(dic.keySet());
+		String word = words.get(0);
+		int threads = 4;
+		int selections = 1000;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				futures.add(executor.submit(() -> {
+					for (int i = 0; i < selections; i++) {
+						trie.recordSelection(word);
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+		assertEquals(threads * selections, trie.frequency(word));
+		assertFalse(trie.recordSelection(word + "{"));
+		TrieQuery query = new TrieQuery(word.substring(0, 1), TrieQuery.Order.FREQUENCY);
+		query.setLimit(3);
+		List<String> ranked = trie.query(query).getWords();
+		assertEquals(word, ranked.get(0));
+		trie.decayFrequencies();
+		assertEquals(threads * selections / 2, trie.frequency(word));
+		trie.delete(word);
+		trie.add(new Tuple<String>(word, dic.get(word)));
+		assertEquals(0, trie.frequency(word));
+	}
+
+	@Test
+	public void test31QueryBudget_exhausted_shouldReturnTruncatedHeadOfResult() {
+		TrieQuery.Order[] orders = { TrieQuery.Order.LENGTH, TrieQuery.Order.LEXICOGRAPHIC,
+				TrieQuery.Order.FREQUENCY };
+		for (TrieQuery.Order order : orders) {
+			TrieQuery query = new TrieQuery(EMPTY_STRING, order);
+			QueryResult full = trie.query(query);
+			QueryBudget budget = new QueryBudget();
+			budget.setMaxNodeVisits(100);
+			query.setBudget(budget);
+			QueryResult partial = trie.query(query);
+			assertFalse(full.isTruncated());
+			assertTrue(partial.isTruncated());
+			assertTrue(partial.getCount() < full.getCount());
+			assertEquals(full.getWords().subList(0, partial.getWords().size()), partial.getWords());
+		}
+		TrieQuery query = new TrieQuery(EMPTY_STRING, TrieQuery.Order.COUNT);
+		QueryBudget budget = new QueryBudget();
+		budget.setMaxNodeVisits(100);
+		query.setBudget(budget);
+		QueryResult result = trie.query(query);
+		assertFalse(result.isTruncated());
+		assertEquals(trie.size(), result.getCount());
+	}
+
+	@Test
+	public void test32QueryBudget_cancelledOrExpired_shouldStopAtFirstVisit() {
+		TrieQuery query = new TrieQuery(EMPTY_STRING, TrieQuery.Order.LENGTH);
+		QueryBudget budget = new QueryBudget();
+		budget.cancel();
+		query.setBudget(budget);
+		QueryResult result = trie.query(query);
+		assertTrue(result.isTruncated());
+		assertEquals(0, result.getCount());
+
+		budget = new QueryBudget();
+		budget.setTimeout(0, TimeUnit.MILLISECONDS);
+		query.setBudget(budget);
+		assertTrue(trie.query(query).isTruncated());
+
+		budget = new QueryBudget();
+		budget.setTimeout(1, TimeUnit.DAYS);
+		query.setBudget(budget);
+		result = trie.query(query);
+		assertFalse(result.isTruncated());
+		assertEquals(trie.wordsWithPrefix(EMPTY_STRING), result.getWords());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void test33CompactAsync_nodePoolingOn_shouldThrowException() {
+		trie.setNodePoolCapacity(16);
+		trie.compactAsync(Runnable::run);
+	}
+
+	@Test
+	public void test34HotPrefixes_deleteShortestWords_shouldRefillLists() {
+		int depth = 3;
+		int size = 2;
+		trie.setHotPrefixes(depth, size);
+		for (int round = 0; round < 3; round++) {
+			for (char c = 'a'; c <= 'z'; c++) {
+				for (String word : trie.shortestWithPrefix(String.valueOf(c), 1)) {
+					assertTrue(trie.delete(word));
+				}
+			}
+			for (String str : dic.keySet()) {
+				for (int len = 1; len <= Math.min(depth, str.length()); len++) {
+					assertShortestWithPrefix(str.substring(0, len), size);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void test35Query_lengthSetsReached_shouldNotVisitLongerLevels() {
+		trie = new RWayTrie<>();
+		trie.add(new Tuple<String>("ab", EMPTY_STRING));
+		trie.add(new Tuple<String>("abcdefgh", EMPTY_STRING));
+		TrieQuery query = new TrieQuery("a", TrieQuery.Order.LENGTH);
+		query.setLengthSets(1);
+		QueryBudget budget = new QueryBudget();
+		budget.setMaxNodeVisits(2);
+		query.setBudget(budget);
+		QueryResult result = trie.query(query);
+		assertFalse(result.isTruncated());
+		assertEquals(Arrays.asList("ab"), result.getWords());
+	}
+
+	@Test
+	public void test36FrequencyQuery_shouldRankBySelectionsAndPrune() {
+		List<String> words = new ArrayList<>(dic.keySet());
+		Collections.sort(words);
+		Random random = new Random(42);
+		for (int i = 0; i < 5000; i++) {
+			trie.recordSelection(words.get(random.nextInt(words.size())));
+		}
+		for (int round = 0; round < 2; round++) {
+			for (char c = 'a'; c <= 'z'; c++) {
+				String prefix = String.valueOf(c);
+				List<String> refList = new ArrayList<>((List<String>) trie.wordsWithPrefix(prefix));
+				refList.sort(Comparator.comparingInt((String word) -> -trie.frequency(word))
+						.thenComparingInt(String::length).thenComparing(word -> word));
+				TrieQuery query = new TrieQuery(prefix, TrieQuery.Order.FREQUENCY);
+				query.setOffset(2);
+				query.setLimit(5);
+				assertEquals(refList.subList(Math.min(2, refList.size()), Math.min(7, refList.size())),
+						trie.query(query).getWords());
+			}
+			trie.decayFrequencies();
+		}
+		String word = words.get(words.size() / 2);
+		for (int i = 0; i < 100000; i++) {
+			trie.recordSelection(word);
+		}
+		TrieQuery query = new TrieQuery(EMPTY_STRING, TrieQuery.Order.FREQUENCY);
+		query.setLimit(1);
+		QueryBudget budget = new QueryBudget();
+		budget.setMaxNodeVisits(word.length() + 1);
+		query.setBudget(budget);
+		QueryResult result = trie.query(query);
+		assertFalse(result.isTruncated());
+		assertEquals(Arrays.asList(word), result.getWords());
+	}
+
+	@Test
+	public void test37CompactAsync_concurrentSelections_shouldKeepFrequencies() throws Exception {
+		List<String> words = new ArrayList<>(dic.keySet());
+		int selections = 20000;
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<?> selector = executor.submit(() -> {
+				for (int i = 0; i < selections; i++) {
+					assertTrue(trie.recordSelection(words.get(i % words.size())));
+				}
+			});
+			int compactions = 0;
+			while (!selector.isDone()) {
+				if (trie.compactAsync(executor).get()) {
+					compactions++;
+				}
+			}
+			selector.get();
+			assertTrue(compactions > 0);
+		} finally {
+			executor.shutdown();
+		}
+		int total = 0;
+		for (String word : words) {
+			total += trie.frequency(word);
+		}
+		assertEquals(selections, total);
+		TrieQuery query = new TrieQuery(EMPTY_STRING, TrieQuery.Order.FREQUENCY);
+		query.setLimit(1);
+		assertEquals(selections / words.size() + 1, trie.frequency(trie.query(query).getWords().get(0)));
+	}
+
+	@Test
+	public void test38Query_concurrentAddDelete_shouldNotFail() throws Exception {
+		List<String> words = new ArrayList<>(dic.keySet());
+		int rounds = 20;
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			Future<?> writer = executor.submit(() -> {
+				for (int r = 0; r < rounds; r++) {
+					for (String word : words) {
+						trie.delete(word);
+					}
+					for (String word : words) {
+						trie.add(new Tuple<String>(word, dic.get(word)));
+					}
+				}
+			});
+			List<Future<?>> readers = new ArrayList<>();
+			readers.add(executor.submit(() -> {
+				while (!writer.isDone()) {
+					for (TrieQuery.Order order : TrieQuery.Order.values()) {
+						TrieQuery query = new TrieQuery(EMPTY_STRING, order);
+						query.setLimit(50);
+						trie.query(query);
+					}
+					trie.words().forEach(word -> assertTrue(word.length() > 0));
+					trie.stream(EMPTY_STRING).parallel().count();
+				}
+			}));
+			readers.add(executor.submit(() -> {
+				while (!writer.isDone()) {
+					trie.freeze();
+					trie.estimatedBytes();
+					trie.decayFrequencies();
+				}
+			}));
+			writer.get();
+			for (Future<?> reader : readers) {
+				reader.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+		assertEquals(words.size(), trie.size());
+		assertEquals(words.size(), trie.freeze().size());
+	}
+}
@@ -0,0 +1,68 @@
+package com.epam.lab.auto_completion.trie;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class SuffixIndexTest {
+
+	private static final int MIN_FRAGMENT_LENGTH = 2;
+
+	private static Map<String, String> dic;
+	private SuffixIndex index;
+
+	@BeforeClass
+	public static void setupDic() throws IOException {
+		dic = TestDictionary.load();
+	}
+
+	@Before
+	public void setupTest() {
+		index = new SuffixIndex(dic.keySet(), MIN_FRAGMENT_LENGTH);
+	}
+
+	@Test
+	public void test01WordsContaining_shouldMatchFullScan() {
+		assertEquals(dic.size(), index.size());
+		for (String str : dic.keySet()) {
+			for (int from = 0; from + MIN_FRAGMENT_LENGTH <= Math.min(str.length(), 4); from++) {
+				String fragment = str.substring(from, Math.min(str.length(), from + 3));
+				assertEquals(fullScan(fragment), index.wordsContaining(fragment));
+			}
+		}
+	}
+
+	@Test
+	public void test02WordsContaining_shortOrAbsentFragment_shouldReturnEmptyList() {
+		assertEquals(0, index.wordsContaining("a").size());
+		assertEquals(0, index.wordsContaining(null).size());
+		assertEquals(0, index.wordsContaining("zzzzzzzzzzzzz").size());
+		assertEquals(0, new SuffixIndex(new ArrayList<>(), MIN_FRAGMENT_LENGTH).wordsContaining("ab").size());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void test03Constructor_nonPositiveFragmentLength_shouldThrowException() {
+		new SuffixIndex(dic.keySet(), 0);
+	}
+
+	private static List<String> fullScan(String fragment) {
+		List<String> result = new ArrayList<>();
+		for (String str : dic.keySet()) {
+			if (str.contains(fragment)) {
+				result.add(str);
+			}
+		}
+		result.sort(RWayTrie::compareShortest);
+		return result;
+	}
+}
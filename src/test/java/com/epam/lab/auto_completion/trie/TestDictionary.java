@@ -0,0 +1,50 @@
+package com.epam.lab.auto_completion.trie;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Scanner;
+
+/**
+ * Test dictionary shared by the trie tests. Dictionary file is read once and
+ * the same unmodifiable map of the words to their values is returned to every
+ * test class.
+ */
+final class TestDictionary {
+
+	private static final String DIC_FILEPATH = "src/test/resources/dic.txt";
+	private static final String DELIMITER_REGEX = "\\s(?=[a-z])";
+
+	private static Map<String, String> dic;
+
+	private TestDictionary() {
+	}
+
+	/**
+	 * Returns the words of the test dictionary mapped to their values,
+	 * reading the dictionary file on the first call.
+	 * 
+	 * @return unmodifiable map of the dictionary words to their values.
+	 * @throws IOException
+	 *             if the dictionary file cannot be read.
+	 */
+	static synchronized Map<String, String> load() throws IOException {
+		if (dic == null) {
+			Map<String, String> words = new HashMap<>();
+			Scanner scanner = new Scanner(new File(DIC_FILEPATH));
+			String[] wordAr;
+			try {
+				while (scanner.hasNextLine()) {
+					wordAr = scanner.nextLine().split(DELIMITER_REGEX);
+					words.put(wordAr[1].trim(), wordAr[0].trim());
+				}
+			} finally {
+				scanner.close();
+			}
+			dic = Collections.unmodifiableMap(words);
+		}
+		return dic;
+	}
+}